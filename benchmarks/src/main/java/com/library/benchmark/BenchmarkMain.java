@@ -0,0 +1,32 @@
+package com.library.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of the benchmark jar.
+ *
+ * Runs JMH with the given command line, defaulting to JSON results in
+ * target/jmh-result.json so runs on different commits can be compared. Any JMH option
+ * can still be passed, for example {@code -p chainLength=100000} or {@code -rff other.json}.
+ */
+public class BenchmarkMain {
+
+    private static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add("-rf");
+            options.add("json");
+        }
+        if (!options.contains("-rff")) {
+            options.add("-rff");
+            options.add(DEFAULT_RESULT_FILE);
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
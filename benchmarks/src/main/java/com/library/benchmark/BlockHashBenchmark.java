@@ -0,0 +1,59 @@
+package com.library.benchmark;
+
+import com.library.blockchain.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing a block header with {@link Block#calculateHash()}.
+ * The header has a fixed size, so the transaction count only matters for the Merkle root,
+ * which is measured separately.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockHashBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int transactions;
+
+    private Block block;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+        block = new Block(1, timestamp, "0".repeat(64));
+        for (int i = 0; i < transactions; i++) {
+            block.addTransaction(SyntheticChains.transaction(random, 1000, 5000, timestamp));
+        }
+        block.setMerkleRoot(block.calculateMerkleRoot());
+    }
+
+    @Benchmark
+    public String calculateHash() {
+        return block.calculateHash();
+    }
+
+    @Benchmark
+    public String calculateMerkleRoot() {
+        return block.calculateMerkleRoot();
+    }
+}
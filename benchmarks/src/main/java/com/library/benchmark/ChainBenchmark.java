@@ -0,0 +1,110 @@
+package com.library.benchmark;
+
+import com.library.blockchain.Blockchain;
+import com.library.blockchain.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating and querying a synthetic chain.
+ *
+ * The chain is built once per trial; its length, block size and the number of users and
+ * books are parameters, e.g. {@code -p chainLength=100000 -p transactionsPerBlock=20}.
+ * Queries pick a different user or book on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ChainBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int chainLength;
+
+    @Param({"10"})
+    private int transactionsPerBlock;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"5000"})
+    private int books;
+
+    @Param({"2"})
+    private int difficulty;
+
+    private Blockchain blockchain;
+
+    @Setup(Level.Trial)
+    public void buildChain() {
+        blockchain = SyntheticChains.build(chainLength, transactionsPerBlock, users, books, difficulty);
+    }
+
+    /**
+     * Query keys, drawn up front so that choosing one does not show up in the measurement
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        private static final int COUNT = 1024;
+
+        private final long[] userIds = new long[COUNT];
+        private final long[] bookIds = new long[COUNT];
+        private final String[] types = new String[COUNT];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void draw(ChainBenchmark chain) {
+            Random random = new Random(7);
+            for (int i = 0; i < COUNT; i++) {
+                userIds[i] = 1 + random.nextInt(chain.users);
+                bookIds[i] = 1 + random.nextInt(chain.books);
+                types[i] = SyntheticChains.TYPES[random.nextInt(SyntheticChains.TYPES.length)];
+            }
+        }
+
+        int next() {
+            next = (next + 1) & (COUNT - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public boolean isChainValid() {
+        return blockchain.isChainValid();
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactionsForUser(Keys keys) {
+        return blockchain.getTransactionsForUser(keys.userIds[keys.next()]);
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactionsForBook(Keys keys) {
+        return blockchain.getTransactionsForBook(keys.bookIds[keys.next()]);
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactionsByType(Keys keys) {
+        return blockchain.getTransactionsByType(keys.types[keys.next()]);
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.benchmark;
+
+import com.library.blockchain.Block;
+import com.library.blockchain.SequentialMiner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cost of mining a block at several difficulties.
+ *
+ * Each iteration builds a pool of blocks with distinct timestamps, and invocations mine
+ * them in turn, so the nonce search starts from an unrelated hash each time and the
+ * average reflects the expected 16^difficulty attempts. The pool is built outside the
+ * measurement, as per-invocation setup would add its own cost and timer overhead to what
+ * is a sub-microsecond operation at low difficulties. Mining always starts from nonce 0,
+ * so a block mined again after the pool wraps costs the same as the first time. This
+ * runs the same sequential miner as {@link Block#mineBlock(int)} without its console
+ * output.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MiningBenchmark {
+
+    @Param({"1", "2", "3", "4", "5"})
+    private int difficulty;
+
+    // A power of two, so the next block is picked with a mask
+    private static final int POOL_SIZE = 1024;
+
+    private final SequentialMiner miner = new SequentialMiner();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final Random random = new Random(42);
+    private final Block[] blocks = new Block[POOL_SIZE];
+    private LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void buildBlocks() {
+        for (int b = 0; b < POOL_SIZE; b++) {
+            timestamp = timestamp.plusSeconds(1);
+            Block block = new Block(1, timestamp, "0".repeat(64));
+            for (int i = 0; i < 10; i++) {
+                block.addTransaction(SyntheticChains.transaction(random, 1000, 5000, timestamp));
+            }
+            block.setMerkleRoot(block.calculateMerkleRoot());
+            blocks[b] = block;
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public boolean mineBlock() {
+        return miner.mine(blocks[next++ & (POOL_SIZE - 1)], difficulty, cancelled);
+    }
+}
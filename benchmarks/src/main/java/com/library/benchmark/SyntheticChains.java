@@ -0,0 +1,64 @@
+package com.library.benchmark;
+
+import com.library.blockchain.Blockchain;
+import com.library.blockchain.SequentialMiner;
+import com.library.blockchain.Transaction;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Builds in-memory chains of loan transactions for the benchmarks.
+ * Transactions are drawn from a fixed seed, so every run builds the same ledger contents.
+ */
+final class SyntheticChains {
+
+    static final String[] TYPES = {"LOAN", "RETURN", "FINE_PAYMENT", "LOAN_MODIFICATION"};
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private SyntheticChains() {
+    }
+
+    /**
+     * Build a chain
+     *
+     * @param blocks The number of blocks after genesis
+     * @param transactionsPerBlock The number of transactions in each block
+     * @param users The number of distinct users
+     * @param books The number of distinct books
+     * @param difficulty The mining difficulty of the chain
+     * @return The chain
+     */
+    static Blockchain build(int blocks, int transactionsPerBlock, int users, int books, int difficulty) {
+        Blockchain blockchain = new Blockchain(difficulty, "10");
+        SequentialMiner miner = new SequentialMiner();
+        Random random = new Random(42);
+        for (int i = 0; i < blocks; i++) {
+            LocalDateTime timestamp = START.plusMinutes(i);
+            List<Transaction> transactions = new ArrayList<>(transactionsPerBlock);
+            for (int j = 0; j < transactionsPerBlock; j++) {
+                transactions.add(transaction(random, users, books, timestamp));
+            }
+            blockchain.sealBlock(transactions, null, timestamp, miner);
+        }
+        return blockchain;
+    }
+
+    /**
+     * Create a random transaction
+     */
+    static Transaction transaction(Random random, int users, int books, LocalDateTime timestamp) {
+        long userId = 1 + random.nextInt(users);
+        long bookId = 1 + random.nextInt(books);
+        String type = TYPES[random.nextInt(TYPES.length)];
+        Transaction transaction = new Transaction(type, userId, "user" + userId, bookId, "Book " + bookId,
+                type + " of book " + bookId + " by user " + userId);
+        transaction.setTransactionId(new UUID(random.nextLong(), random.nextLong()).toString());
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
@@ -1,11 +1,9 @@
 package com.library.blockchain;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Represents a block in the blockchain
@@ -14,10 +12,19 @@ public class Block {
     private int index;
     private LocalDateTime timestamp;
     private String previousHash;
+    private String merkleRoot;
+    private String stateRoot; // Root of the ledger state snapshot committed by this block, if any
     private String hash;
     private List<Transaction> transactions;
     private int nonce;
 
+    /**
+     * Create an empty block to be populated when reading the ledger from disk
+     */
+    Block() {
+        this.transactions = new ArrayList<>();
+    }
+
     /**
      * Create a new block
      *
@@ -35,44 +42,74 @@ public class Block {
     }
 
     /**
-     * Calculate the hash of the block
+     * Calculate the hash of the block.
+     * Only the fixed-size header is hashed and transactions are committed to through the
+     * Merkle root, so the cost of hashing does not depend on the size of the block's contents.
      *
      * @return The hash of the block
      */
     public String calculateHash() {
-        String dataToHash = index + timestamp.toString() + previousHash + transactions.toString() + nonce;
-        
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(dataToHash.getBytes(StandardCharsets.UTF_8));
-            
-            // Convert byte array to hexadecimal string
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+        return HashUtils.toHex(BlockHasher.hashHeader(this));
+    }
+
+    /**
+     * Check that the stored hash matches the block's header.
+     * Unlike comparing against {@link #calculateHash()}, this does not allocate.
+     *
+     * @return True if the stored hash is the hash of the header
+     */
+    public boolean hasValidHash() {
+        return HashUtils.matchesHex(BlockHasher.hashHeader(this), hash);
+    }
+
+    /**
+     * Build the Merkle tree over the hashes of the block's transactions
+     *
+     * @return The Merkle tree
+     */
+    public MerkleTree buildMerkleTree() {
+        List<byte[]> leaves = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            leaves.add(transaction.calculateHashBytes());
+        }
+        return new MerkleTree(leaves);
+    }
+
+    /**
+     * Calculate the Merkle root from the block's current transactions
+     *
+     * @return The Merkle root
+     */
+    public String calculateMerkleRoot() {
+        return HashUtils.toHex(buildMerkleTree().getRoot());
+    }
+
+    /**
+     * Build the inclusion proof for a transaction in this block. The proof leads to the
+     * Merkle root in the block header, which the block hash covers, so it fails to verify if
+     * the transactions no longer match that root; the tree is rebuilt only for the path.
+     *
+     * @param transactionId The ID of the transaction
+     * @return The inclusion proof, or null if the transaction is not in this block
+     */
+    public MerkleProof getMerkleProof(String transactionId) {
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction.getTransactionId().equals(transactionId)) {
+                return new MerkleProof(index, hash, transactionId, transaction.calculateHash(),
+                        i, getMerkleRoot(), buildMerkleTree().getProof(i));
             }
-            
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
         }
+        return null;
     }
 
     /**
-     * Mine the block with a specific difficulty
+     * Mine the block with a specific difficulty on the calling thread
      *
      * @param difficulty The number of leading zeros required in the hash
      */
     public void mineBlock(int difficulty) {
-        String target = new String(new char[difficulty]).replace('\0', '0');
-        
-        while (!hash.substring(0, difficulty).equals(target)) {
-            nonce++;
-            hash = calculateHash();
-        }
-        
+        new SequentialMiner().mine(this, difficulty, new AtomicBoolean());
         System.out.println("Block mined: " + hash);
     }
 
@@ -88,6 +125,7 @@ public class Block {
         
         // Add transaction
         transactions.add(transaction);
+        merkleRoot = null;
         return true;
     }
 
@@ -117,6 +155,36 @@ public class Block {
         this.previousHash = previousHash;
     }
 
+    /**
+     * Get the Merkle root of the block's transactions, calculating it if necessary
+     *
+     * @return The Merkle root
+     */
+    public String getMerkleRoot() {
+        if (merkleRoot == null) {
+            merkleRoot = calculateMerkleRoot();
+        }
+        return merkleRoot;
+    }
+
+    public void setMerkleRoot(String merkleRoot) {
+        this.merkleRoot = merkleRoot;
+    }
+
+    /**
+     * Get the root of the ledger state snapshot committed by this block
+     *
+     * @return The state root, or null if the block does not commit a snapshot
+     * @see LedgerState
+     */
+    public String getStateRoot() {
+        return stateRoot;
+    }
+
+    public void setStateRoot(String stateRoot) {
+        this.stateRoot = stateRoot;
+    }
+
     public String getHash() {
         return hash;
     }
@@ -131,6 +199,7 @@ public class Block {
 
     public void setTransactions(List<Transaction> transactions) {
         this.transactions = transactions;
+        this.merkleRoot = null;
     }
 
     public int getNonce() {
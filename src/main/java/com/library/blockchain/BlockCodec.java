@@ -0,0 +1,217 @@
+package com.library.blockchain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes blocks to and from the binary record format used by the on-disk ledger
+ */
+public final class BlockCodec {
+    private static final byte FORMAT_VERSION = 5;
+
+    private BlockCodec() {
+    }
+
+    /**
+     * Encode a block, including all of its transactions
+     *
+     * @param block The block to encode
+     * @return The encoded block
+     */
+    public static byte[] encode(Block block) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(block.getIndex());
+            writeTimestamp(out, block.getTimestamp());
+            writeString(out, block.getPreviousHash());
+            writeString(out, block.getMerkleRoot());
+            writeString(out, block.getStateRoot());
+            writeString(out, block.getHash());
+            out.writeInt(block.getNonce());
+
+            List<Transaction> transactions = block.getTransactions();
+            out.writeInt(transactions.size());
+            for (Transaction transaction : transactions) {
+                writeTransaction(out, transaction);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a block previously produced by {@link #encode(Block)}
+     *
+     * @param data The encoded block
+     * @return The decoded block
+     */
+    public static Block decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            checkVersion(version);
+
+            Block block = new Block();
+            block.setIndex(in.readInt());
+            block.setTimestamp(readTimestamp(in));
+            block.setPreviousHash(readString(in));
+            String merkleRoot = readString(in);
+            block.setStateRoot(readString(in));
+            block.setHash(readString(in));
+            block.setNonce(in.readInt());
+
+            int count = in.readInt();
+            List<Transaction> transactions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                transactions.add(readTransaction(in));
+            }
+            block.setTransactions(transactions);
+            // Keep the stored root so that verification can detect tampered transactions
+            block.setMerkleRoot(merkleRoot);
+            return block;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decode only the header fields of an encoded block.
+     * The header fields precede the transactions in the record, so the transactions are
+     * never read.
+     *
+     * @param data The encoded block, positioned at its start
+     * @return The block's summary
+     */
+    public static BlockSummary decodeSummary(ByteBuffer data) {
+        byte version = data.get();
+        checkVersion(version);
+        int index = data.getInt();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(data.getLong(), data.getInt(), ZoneOffset.UTC);
+        String previousHash = readString(data);
+        String merkleRoot = readString(data);
+        String stateRoot = readString(data);
+        String hash = readString(data);
+        int nonce = data.getInt();
+        int transactionCount = data.getInt();
+        return new BlockSummary(index, timestamp, previousHash, merkleRoot, stateRoot, hash, nonce, transactionCount);
+    }
+
+    private static void checkVersion(byte version) {
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported block format version " + version);
+        }
+    }
+
+    private static void writeTransaction(DataOutputStream out, Transaction transaction) throws IOException {
+        writeString(out, transaction.getTransactionId());
+        writeString(out, transaction.getType());
+        writeLong(out, transaction.getUserId());
+        writeString(out, transaction.getUsername());
+        writeLong(out, transaction.getBookId());
+        writeString(out, transaction.getBookTitle());
+        writeTimestamp(out, transaction.getTimestamp());
+        writeString(out, transaction.getDetails());
+        writeString(out, transaction.getSignature());
+        writeDecimal(out, transaction.getAmount());
+    }
+
+    private static Transaction readTransaction(DataInputStream in) throws IOException {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(readString(in));
+        transaction.setType(readString(in));
+        transaction.setUserId(readLong(in));
+        transaction.setUsername(readString(in));
+        transaction.setBookId(readLong(in));
+        transaction.setBookTitle(readString(in));
+        transaction.setTimestamp(readTimestamp(in));
+        transaction.setDetails(readString(in));
+        transaction.setSignature(readString(in));
+        transaction.setAmount(readDecimal(in));
+        return transaction;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer data) {
+        int length = data.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            out.writeInt(value.scale());
+            out.writeInt(unscaled.length);
+            out.write(unscaled);
+        }
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readInt()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime timestamp) throws IOException {
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
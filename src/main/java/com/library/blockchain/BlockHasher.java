@@ -0,0 +1,82 @@
+package com.library.blockchain;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+/**
+ * Hashes block headers.
+ *
+ * The header of a block is encoded once into a reused buffer and each candidate nonce
+ * only overwrites its last four bytes, so testing a nonce does not allocate. An instance
+ * is not thread-safe; each mining thread uses its own. The static path used for
+ * verification shares a per-thread header buffer, output buffer and digest instead.
+ */
+public class BlockHasher {
+    private static final ThreadLocal<BlockHasher> THREAD_HASHER = ThreadLocal.withInitial(BlockHasher::new);
+
+    private final MessageDigest digest = HashUtils.newDigest();
+    private final byte[] header = new byte[BlockHeader.MAX_SIZE];
+    private final byte[] output = new byte[HashUtils.HASH_LENGTH];
+    private int headerLength;
+
+    private BlockHasher() {
+    }
+
+    /**
+     * Create a hasher for a block
+     *
+     * @param block The block to hash; its Merkle root must be final
+     */
+    public BlockHasher(Block block) {
+        headerLength = BlockHeader.encode(block, header);
+    }
+
+    /**
+     * Hash the block with a candidate nonce
+     *
+     * @param nonce The nonce to try
+     * @param out The buffer receiving the 32-byte hash
+     */
+    public void hash(int nonce, byte[] out) {
+        BlockHeader.putNonce(header, headerLength, nonce);
+        digest.update(header, 0, headerLength);
+        try {
+            digest.digest(out, 0, HashUtils.HASH_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalArgumentException("Hash buffer is too small", e);
+        }
+    }
+
+    /**
+     * Hash a block's header using the calling thread's buffers.
+     * The returned array is reused by the next call on the same thread.
+     *
+     * @param block The block to hash
+     * @return The 32-byte hash of the block's header
+     */
+    static byte[] hashHeader(Block block) {
+        BlockHasher hasher = THREAD_HASHER.get();
+        hasher.headerLength = BlockHeader.encode(block, hasher.header);
+        hasher.hash(block.getNonce(), hasher.output);
+        return hasher.output;
+    }
+
+    /**
+     * Check a hash against the mining difficulty without converting it to hex.
+     * The difficulty counts leading zero hex digits, so each full byte covers two digits
+     * and an odd difficulty also checks the high nibble of the next byte.
+     *
+     * @param hash The hash to check
+     * @param difficulty The number of leading zero hex digits required
+     * @return True if the hash meets the difficulty
+     */
+    public static boolean meetsDifficulty(byte[] hash, int difficulty) {
+        int fullBytes = difficulty / 2;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[i] != 0) {
+                return false;
+            }
+        }
+        return difficulty % 2 == 0 || (hash[fullBytes] & 0xf0) == 0;
+    }
+}
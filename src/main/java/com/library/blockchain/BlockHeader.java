@@ -0,0 +1,99 @@
+package com.library.blockchain;
+
+import java.time.ZoneOffset;
+
+/**
+ * Canonical binary layout of a block header, which is the only input to the block hash.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     1  header version
+ *      1     4  block index
+ *      5     8  timestamp, epoch seconds (UTC)
+ *     13     4  timestamp, nanoseconds
+ *     17    32  previous block hash
+ *     49    32  Merkle root of the transactions
+ *     81    32  ledger state root (version 2 only)
+ *  81/113    4  nonce
+ * </pre>
+ *
+ * Integers are big-endian. The genesis block's previous hash of "0" is encoded as 32 zero bytes.
+ * Blocks that commit a ledger state snapshot use version 2; all other blocks keep the
+ * version 1 layout so that their hashes are unchanged. The nonce is last so that mining
+ * only rewrites the final four bytes between attempts.
+ */
+public final class BlockHeader {
+    public static final byte VERSION = 1;
+    public static final byte STATE_ROOT_VERSION = 2;
+    public static final int SIZE = 85;
+    public static final int MAX_SIZE = SIZE + HashUtils.HASH_LENGTH;
+
+    private static final int INDEX_OFFSET = 1;
+    private static final int SECONDS_OFFSET = 5;
+    private static final int NANOS_OFFSET = 13;
+    private static final int PREVIOUS_HASH_OFFSET = 17;
+    private static final int MERKLE_ROOT_OFFSET = 49;
+    private static final int STATE_ROOT_OFFSET = 81;
+
+    private BlockHeader() {
+    }
+
+    /**
+     * Encode the header of a block
+     *
+     * @param block The block; its Merkle root is calculated if necessary
+     * @param header The buffer of at least {@link #MAX_SIZE} bytes receiving the header
+     * @return The length of the encoded header
+     */
+    public static int encode(Block block, byte[] header) {
+        boolean hasStateRoot = block.getStateRoot() != null;
+        int length = hasStateRoot ? MAX_SIZE : SIZE;
+        header[0] = hasStateRoot ? STATE_ROOT_VERSION : VERSION;
+        putInt(header, INDEX_OFFSET, block.getIndex());
+        putLong(header, SECONDS_OFFSET, block.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        putInt(header, NANOS_OFFSET, block.getTimestamp().getNano());
+        putHash(header, PREVIOUS_HASH_OFFSET, block.getPreviousHash());
+        putHash(header, MERKLE_ROOT_OFFSET, block.getMerkleRoot());
+        if (hasStateRoot) {
+            putHash(header, STATE_ROOT_OFFSET, block.getStateRoot());
+        }
+        putNonce(header, length, block.getNonce());
+        return length;
+    }
+
+    /**
+     * Replace the nonce in an encoded header
+     *
+     * @param header The encoded header
+     * @param length The length of the encoded header
+     * @param nonce The new nonce
+     */
+    public static void putNonce(byte[] header, int length, int nonce) {
+        putInt(header, length - Integer.BYTES, nonce);
+    }
+
+    private static void putHash(byte[] header, int offset, String hex) {
+        if ("0".equals(hex)) {
+            for (int i = 0; i < HashUtils.HASH_LENGTH; i++) {
+                header[offset + i] = 0;
+            }
+            return;
+        }
+        if (hex.length() != HashUtils.HASH_LENGTH * 2) {
+            throw new IllegalArgumentException("Invalid block hash: " + hex);
+        }
+        HashUtils.fromHex(hex, header, offset);
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static void putLong(byte[] buffer, int offset, long value) {
+        putInt(buffer, offset, (int) (value >>> 32));
+        putInt(buffer, offset + 4, (int) value);
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.blockchain;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread that seals pending transactions into blocks according to a
+ * {@link SealingPolicy}.
+ *
+ * Producers never block: adding a transaction only wakes the sealer when it is the first
+ * one pending (to start the delay timer) or when it completes a full block. Otherwise the
+ * sealer sleeps until the oldest pending transaction reaches the maximum delay.
+ */
+public class BlockSealer {
+    private final Blockchain blockchain;
+    private final SealingPolicy policy;
+    private final String miningRewardAddress;
+    private final Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Create a sealer for a blockchain
+     *
+     * @param blockchain The blockchain whose pending transactions are sealed
+     * @param policy The policy deciding when to seal
+     * @param miningRewardAddress The address to receive mining rewards
+     */
+    public BlockSealer(Blockchain blockchain, SealingPolicy policy, String miningRewardAddress) {
+        this.blockchain = blockchain;
+        this.policy = policy;
+        this.miningRewardAddress = miningRewardAddress;
+        this.thread = new Thread(this::run, "ledger-sealer");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Start sealing in the background
+     */
+    public void start() {
+        running = true;
+        blockchain.setPendingListener(this::onTransactionAdded);
+        thread.start();
+    }
+
+    /**
+     * Stop sealing, abandoning any block being mined, and wait for the thread to finish
+     */
+    public void stop() {
+        running = false;
+        blockchain.setPendingListener(count -> { });
+        blockchain.cancelMining();
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void onTransactionAdded(int pendingCount) {
+        if (pendingCount == 1 || pendingCount == policy.getMaxTransactions()) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            Duration wait = policy.timeUntilSeal(blockchain.getPendingCount(), blockchain.getOldestPendingAge());
+            if (wait == null) {
+                // Nothing pending: sleep until the first transaction arrives
+                LockSupport.park(this);
+            } else if (!wait.isZero() && !wait.isNegative()) {
+                LockSupport.parkNanos(this, wait.toNanos());
+            } else {
+                seal();
+            }
+        }
+    }
+
+    private void seal() {
+        try {
+            blockchain.minePendingTransactions(miningRewardAddress, policy.getMaxTransactions());
+            System.out.println("Blockchain now has " + blockchain.size() + " blocks");
+        } catch (RuntimeException e) {
+            System.out.println("Failed to seal block: " + e.getMessage());
+            // Back off so that a persistent failure does not spin
+            LockSupport.parkNanos(this, policy.getMaxDelay().toNanos());
+        }
+    }
+}
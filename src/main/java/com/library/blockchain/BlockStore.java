@@ -0,0 +1,72 @@
+package com.library.blockchain;
+
+import java.nio.file.Path;
+
+/**
+ * Append-only storage for the blocks of a chain.
+ * Blocks are addressed by their index in the chain and can never be modified once appended.
+ * Old blocks may be archived, after which only blocks from {@link #firstIndex()} are readable.
+ */
+public interface BlockStore extends AutoCloseable {
+
+    /**
+     * Get the number of blocks in the store
+     *
+     * @return The number of blocks
+     */
+    int size();
+
+    /**
+     * Get the index of the oldest block that has not been archived
+     *
+     * @return The index of the first readable block
+     */
+    default int firstIndex() {
+        return 0;
+    }
+
+    /**
+     * Move blocks below an index out of the store into an archive.
+     * Stores may archive fewer blocks than requested, for example only whole segments.
+     *
+     * @param blockIndex The index below which blocks may be archived
+     * @param archiveDirectory The directory receiving the archived blocks
+     * @return The index of the first block still readable from the store
+     */
+    default int archiveBefore(int blockIndex, Path archiveDirectory) {
+        return firstIndex();
+    }
+
+    /**
+     * Read a block from the store
+     *
+     * @param index The index of the block in the chain
+     * @return The block at the specified index
+     * @throws IndexOutOfBoundsException If no block exists at the index or it has been archived
+     */
+    Block read(int index);
+
+    /**
+     * Read the header fields of a block without its transactions
+     *
+     * @param index The index of the block in the chain
+     * @return The summary of the block at the specified index
+     * @throws IndexOutOfBoundsException If no block exists at the index
+     */
+    default BlockSummary readSummary(int index) {
+        return BlockSummary.of(read(index));
+    }
+
+    /**
+     * Append a block to the end of the store
+     *
+     * @param block The block to append; its index must equal the current size of the store
+     */
+    void append(Block block);
+
+    /**
+     * Release any resources held by the store
+     */
+    @Override
+    void close();
+}
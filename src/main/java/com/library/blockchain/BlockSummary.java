@@ -0,0 +1,87 @@
+package com.library.blockchain;
+
+import java.time.LocalDateTime;
+
+/**
+ * Header fields of a block without its transactions, used for listing the chain
+ */
+public class BlockSummary {
+    private final int index;
+    private final LocalDateTime timestamp;
+    private final String previousHash;
+    private final String merkleRoot;
+    private final String stateRoot;
+    private final String hash;
+    private final int nonce;
+    private final int transactionCount;
+
+    /**
+     * Create a block summary
+     *
+     * @param index The index of the block
+     * @param timestamp When the block was created
+     * @param previousHash The hash of the previous block
+     * @param merkleRoot The Merkle root of the block's transactions
+     * @param stateRoot The root of the ledger state committed by the block, or null
+     * @param hash The hash of the block
+     * @param nonce The nonce found by mining
+     * @param transactionCount The number of transactions in the block
+     */
+    public BlockSummary(int index, LocalDateTime timestamp, String previousHash, String merkleRoot,
+                        String stateRoot, String hash, int nonce, int transactionCount) {
+        this.index = index;
+        this.timestamp = timestamp;
+        this.previousHash = previousHash;
+        this.merkleRoot = merkleRoot;
+        this.stateRoot = stateRoot;
+        this.hash = hash;
+        this.nonce = nonce;
+        this.transactionCount = transactionCount;
+    }
+
+    /**
+     * Summarize a block
+     *
+     * @param block The block
+     * @return The block's summary
+     */
+    public static BlockSummary of(Block block) {
+        return new BlockSummary(block.getIndex(), block.getTimestamp(), block.getPreviousHash(),
+                block.getMerkleRoot(), block.getStateRoot(), block.getHash(), block.getNonce(),
+                block.getTransactions().size());
+    }
+
+    // Getters
+
+    public int getIndex() {
+        return index;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    public String getStateRoot() {
+        return stateRoot;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public int getNonce() {
+        return nonce;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+}
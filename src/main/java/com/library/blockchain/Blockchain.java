@@ -1,17 +1,35 @@
 package com.library.blockchain;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 /**
  * Represents a blockchain for tracking library transactions
  */
 public class Blockchain {
-    private List<Block> chain;
+    private final BlockStore store;
+    private final SnapshotStore snapshots;
+    private volatile LedgerIndex index = new LedgerIndex();
+    private volatile LedgerState state = new LedgerState();
+    private volatile int lastSnapshotIndex = -1;
+    private final AtomicBoolean miningCancelled = new AtomicBoolean();
+    private volatile Block latestBlock;
+    private Miner miner = new SequentialMiner();
+    private SignatureVerifier signatureVerifier;
+    private LedgerKeys ledgerKeys;
     private int difficulty;
-    private List<Transaction> pendingTransactions;
+    private final Deque<Transaction> pendingTransactions = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private volatile IntConsumer pendingListener = count -> { };
     private String miningReward;
 
     /**
@@ -21,13 +39,48 @@ public class Blockchain {
      * @param miningReward The reward for mining a block
      */
     public Blockchain(int difficulty, String miningReward) {
-        this.chain = new ArrayList<>();
+        this(difficulty, miningReward, new InMemoryBlockStore());
+    }
+
+    /**
+     * Create a blockchain backed by a block store.
+     * An empty store is seeded with the genesis block; otherwise the existing chain is
+     * resumed after verifying that its tail is intact.
+     *
+     * @param difficulty The mining difficulty (number of leading zeros required in block hash)
+     * @param miningReward The reward for mining a block
+     * @param store The store holding the blocks of the chain
+     */
+    public Blockchain(int difficulty, String miningReward, BlockStore store) {
+        this(difficulty, miningReward, store, null);
+    }
+
+    /**
+     * Create a blockchain backed by a block store that periodically snapshots its state.
+     * On restart the state is restored from the newest valid snapshot and only the blocks
+     * after it are replayed; blocks before it may have been archived.
+     *
+     * @param difficulty The mining difficulty (number of leading zeros required in block hash)
+     * @param miningReward The reward for mining a block
+     * @param store The store holding the blocks of the chain
+     * @param snapshots The store for state snapshots, or null to disable snapshots
+     */
+    public Blockchain(int difficulty, String miningReward, BlockStore store, SnapshotStore snapshots) {
+        this.store = store;
+        this.snapshots = snapshots;
         this.difficulty = difficulty;
-        this.pendingTransactions = new ArrayList<>();
         this.miningReward = miningReward;
-        
-        // Create the genesis block
-        createGenesisBlock();
+
+        if (store.size() == 0) {
+            // Create the genesis block
+            createGenesisBlock();
+        } else {
+            latestBlock = store.read(store.size() - 1);
+            verifyTail();
+            restoreState();
+            restoreIndex();
+            replayTail();
+        }
     }
 
     /**
@@ -36,7 +89,82 @@ public class Blockchain {
     private void createGenesisBlock() {
         Block genesisBlock = new Block(0, LocalDateTime.now(), "0");
         genesisBlock.setHash(genesisBlock.calculateHash());
-        chain.add(genesisBlock);
+        store.append(genesisBlock);
+        state.apply(genesisBlock);
+        index.indexBlock(genesisBlock);
+        latestBlock = genesisBlock;
+    }
+
+    /**
+     * Start from the newest snapshot whose root is committed by its block, if any
+     */
+    private void restoreState() {
+        int first = store.firstIndex();
+        if (snapshots != null) {
+            for (int blockIndex : snapshots.listSnapshots()) {
+                if (blockIndex < first || blockIndex >= store.size()) {
+                    continue;
+                }
+                LedgerState snapshot = snapshots.load(blockIndex);
+                String stateRoot = store.read(blockIndex).getStateRoot();
+                if (snapshot.getBlockCount() == blockIndex && HashUtils.matchesHex(snapshot.computeRoot(), stateRoot)) {
+                    state = snapshot;
+                    lastSnapshotIndex = blockIndex;
+                    return;
+                }
+                System.out.println("Discarding ledger snapshot at block " + blockIndex);
+            }
+        }
+        if (first > 0) {
+            throw new IllegalStateException("Blocks before " + first + " are archived but no valid snapshot covers them");
+        }
+    }
+
+    /**
+     * Start from the index saved with the restored snapshot, if any, dropping the
+     * transactions of blocks archived since it was saved
+     */
+    private void restoreIndex() {
+        if (lastSnapshotIndex < 0) {
+            return;
+        }
+        LedgerIndex snapshot = snapshots.loadIndex(lastSnapshotIndex);
+        if (snapshot == null || snapshot.getBlockCount() != lastSnapshotIndex) {
+            System.out.println("Rebuilding the ledger index from block " + store.firstIndex());
+            return;
+        }
+        snapshot.retainFrom(store.firstIndex());
+        index = snapshot;
+    }
+
+    /**
+     * Decode the stored blocks the restored index and state do not cover yet, indexing them
+     * and applying them to the state
+     */
+    private void replayTail() {
+        int from = Math.max(store.firstIndex(), Math.min(index.getBlockCount(), state.getBlockCount()));
+        for (int i = from; i < store.size(); i++) {
+            Block block = store.read(i);
+            if (i >= index.getBlockCount()) {
+                index.indexBlock(block);
+            }
+            if (i >= state.getBlockCount()) {
+                state.apply(block);
+            }
+        }
+    }
+
+    /**
+     * Verify that the most recently stored block is intact and linked to its predecessor
+     */
+    private void verifyTail() {
+        if (!latestBlock.hasValidHash()) {
+            throw new IllegalStateException("Invalid hash for block " + latestBlock.getIndex());
+        }
+        if (latestBlock.getIndex() > 0
+                && !latestBlock.getPreviousHash().equals(store.read(latestBlock.getIndex() - 1).getHash())) {
+            throw new IllegalStateException("Invalid previous hash for block " + latestBlock.getIndex());
+        }
     }
 
     /**
@@ -45,11 +173,58 @@ public class Blockchain {
      * @return The latest block
      */
     public Block getLatestBlock() {
-        return chain.get(chain.size() - 1);
+        return latestBlock;
+    }
+
+    /**
+     * Get the number of blocks in the chain, including the genesis block
+     *
+     * @return The number of blocks
+     */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Get a block from the chain
+     *
+     * @param index The index of the block
+     * @return The block at the specified index
+     */
+    public Block getBlock(int index) {
+        return store.read(index);
+    }
+
+    /**
+     * Get the header fields of a block without decoding its transactions
+     *
+     * @param index The index of the block
+     * @return The summary of the block at the specified index
+     */
+    public BlockSummary getBlockSummary(int index) {
+        return store.readSummary(index);
+    }
+
+    /**
+     * Get the summaries of consecutive blocks, newest first
+     *
+     * @param before The index just above the first block to return; blocks below it are listed
+     * @param limit The maximum number of blocks to return
+     * @return The summaries of up to {@code limit} blocks in descending index order
+     */
+    public List<BlockSummary> getBlockSummariesBefore(int before, int limit) {
+        int start = Math.min(before, store.size()) - 1;
+        int end = Math.max(start - limit, store.firstIndex() - 1);
+        List<BlockSummary> summaries = new ArrayList<>(Math.max(start - end, 0));
+        for (int i = start; i > end; i--) {
+            summaries.add(store.readSummary(i));
+        }
+        return summaries;
     }
 
     /**
-     * Add a new transaction to the pending transactions
+     * Add a new transaction to the pending transactions.
+     * Safe to call from any number of threads without locking.
      *
      * @param transaction The transaction to add
      */
@@ -60,71 +235,325 @@ public class Blockchain {
         }
         
         // Add transaction to pending transactions
-        pendingTransactions.add(transaction);
+        pendingTransactions.offerLast(transaction);
+        pendingListener.accept(pendingCount.incrementAndGet());
     }
 
     /**
-     * Mine pending transactions and add a new block to the chain
+     * Mine all pending transactions and add a new block to the chain
      *
      * @param miningRewardAddress The address to receive the mining reward
+     * @return True if a block was added, false if nothing was pending or mining was cancelled
      */
-    public void minePendingTransactions(String miningRewardAddress) {
-        // Create a new block with all pending transactions
-        Block block = new Block(chain.size(), LocalDateTime.now(), getLatestBlock().getHash());
-        
-        // Add all pending transactions to the block
-        for (Transaction transaction : pendingTransactions) {
+    public boolean minePendingTransactions(String miningRewardAddress) {
+        return minePendingTransactions(miningRewardAddress, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Mine pending transactions, oldest first, and add a new block to the chain.
+     * The mining reward is recorded in the same block, signed with the ledger keys if set.
+     *
+     * @param miningRewardAddress The address to receive the mining reward
+     * @param maxTransactions The maximum number of pending transactions to include
+     * @return True if a block was added, false if nothing was pending or mining was cancelled
+     */
+    public synchronized boolean minePendingTransactions(String miningRewardAddress, int maxTransactions) {
+        // Create a new block with the oldest pending transactions
+        Block block = new Block(store.size(), LocalDateTime.now(), getLatestBlock().getHash());
+
+        Transaction transaction;
+        while (block.getTransactions().size() < maxTransactions && (transaction = pendingTransactions.pollFirst()) != null) {
+            pendingCount.decrementAndGet();
+            // A transaction with a deterministic ID may already have been sealed, e.g. by the backfill
+            if (containsTransaction(transaction.getTransactionId())) {
+                System.out.println("Skipped transaction " + transaction.getTransactionId() + " already on the chain");
+                continue;
+            }
             block.addTransaction(transaction);
         }
-        
-        // Mine the block
-        System.out.println("Mining block...");
-        block.mineBlock(difficulty);
-        
-        // Add the block to the chain
-        System.out.println("Block successfully mined!");
-        chain.add(block);
-        
-        // Reset pending transactions and add mining reward
-        pendingTransactions = new ArrayList<>();
+        if (signatureVerifier != null) {
+            rejectUnsigned(block);
+        }
+        if (block.getTransactions().isEmpty()) {
+            return false;
+        }
+        int sealedTransactions = block.getTransactions().size();
+
         Transaction rewardTransaction = new Transaction(
                 "MINING_REWARD",
                 0L,
                 "SYSTEM",
                 0L,
                 "N/A",
-                "Mining reward of " + miningReward
+                "Mining reward of " + miningReward + " to " + miningRewardAddress
         );
-        pendingTransactions.add(rewardTransaction);
+        if (ledgerKeys != null) {
+            ledgerKeys.sign(rewardTransaction);
+        }
+        block.addTransaction(rewardTransaction);
+
+        // Commit a snapshot of the state as it stands before this block
+        boolean snapshotDue = snapshots != null && snapshots.isDue(block.getIndex());
+        if (snapshotDue) {
+            block.setStateRoot(HashUtils.toHex(state.computeRoot()));
+        }
+
+        // Mine the block
+        System.out.println("Mining block...");
+        miningCancelled.set(false);
+        if (!miner.mine(block, difficulty, miningCancelled)) {
+            System.out.println("Mining cancelled");
+            // Return the transactions to the front of the queue in their original order
+            for (int i = sealedTransactions - 1; i >= 0; i--) {
+                pendingTransactions.offerFirst(block.getTransactions().get(i));
+                pendingCount.incrementAndGet();
+            }
+            return false;
+        }
+        
+        // Add the block to the chain
+        System.out.println("Block successfully mined!");
+        commit(block, snapshotDue);
+        return true;
     }
 
     /**
-     * Check if the blockchain is valid
+     * Seal a block of transactions directly, bypassing the pending queue.
+     * Used to backfill history: the caller prepares (and may sign and hash) the transactions
+     * in parallel, and with a {@link SequentialMiner} the resulting block is deterministic.
+     *
+     * @param transactions The transactions of the block, in order
+     * @param merkleRoot The Merkle root of the transactions if already computed, or null
+     * @param timestamp The timestamp of the block
+     * @param blockMiner The miner to seal the block with
+     * @return The sealed block, or null if mining was cancelled
+     */
+    public synchronized Block sealBlock(List<Transaction> transactions, String merkleRoot,
+                                        LocalDateTime timestamp, Miner blockMiner) {
+        Block block = new Block(store.size(), timestamp, getLatestBlock().getHash());
+        block.setTransactions(new ArrayList<>(transactions));
+        if (merkleRoot != null) {
+            block.setMerkleRoot(merkleRoot);
+        }
+
+        boolean snapshotDue = snapshots != null && snapshots.isDue(block.getIndex());
+        if (snapshotDue) {
+            block.setStateRoot(HashUtils.toHex(state.computeRoot()));
+        }
+
+        miningCancelled.set(false);
+        if (!blockMiner.mine(block, difficulty, miningCancelled)) {
+            return null;
+        }
+        commit(block, snapshotDue);
+        return block;
+    }
+
+    /**
+     * Append a mined block and update the state, indexes and latest block
+     */
+    private void commit(Block block, boolean snapshotDue) {
+        store.append(block);
+        if (snapshotDue) {
+            snapshots.save(state, index);
+            lastSnapshotIndex = block.getIndex();
+        }
+        state.apply(block);
+        index.indexBlock(block);
+        latestBlock = block;
+    }
+
+    /**
+     * Archive blocks that are covered by the latest snapshot.
+     * The transactions of the archived blocks are dropped from the secondary indexes, so
+     * history queries only return transactions that are still in the store.
+     *
+     * @param blockIndex The index below which blocks may be archived; it is capped at the
+     *                   latest snapshot so that the state can still be restored
+     * @param archiveDirectory The directory receiving the archived blocks
+     * @return The index of the first block still in the store
+     */
+    public synchronized int archiveBefore(int blockIndex, Path archiveDirectory) {
+        int first = store.firstIndex();
+        int limit = Math.min(blockIndex, lastSnapshotIndex);
+        if (limit <= first) {
+            return first;
+        }
+        int newFirst = store.archiveBefore(limit, archiveDirectory);
+        if (newFirst != first) {
+            index.retainFrom(newFirst);
+            System.out.println("Archived blocks " + first + " to " + (newFirst - 1));
+        }
+        return newFirst;
+    }
+
+    /**
+     * Get the index of the oldest block that has not been archived
+     *
+     * @return The index of the first block in the store
+     */
+    public int getFirstIndex() {
+        return store.firstIndex();
+    }
+
+    /**
+     * Get the index of the block committing the latest state snapshot
+     *
+     * @return The block index, or -1 if no snapshot has been taken
+     */
+    public int getLastSnapshotIndex() {
+        return lastSnapshotIndex;
+    }
+
+    /**
+     * Get the ledger state derived from the sealed blocks
+     *
+     * @return The current state
+     */
+    public LedgerState getLedgerState() {
+        return state;
+    }
+
+    /**
+     * Get the number of pending transactions
+     *
+     * @return The number of transactions waiting to be sealed into a block
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Get how long the oldest pending transaction has been waiting
+     *
+     * @return The age of the oldest pending transaction, or zero if none is pending
+     */
+    public Duration getOldestPendingAge() {
+        Transaction oldest = pendingTransactions.peekFirst();
+        return oldest == null ? Duration.ZERO : Duration.between(oldest.getTimestamp(), LocalDateTime.now());
+    }
+
+    /**
+     * Register a callback invoked with the new pending count after each added transaction
+     *
+     * @param pendingListener The callback; it runs on the adding thread and must not block
+     */
+    public void setPendingListener(IntConsumer pendingListener) {
+        this.pendingListener = pendingListener;
+    }
+
+    /**
+     * Abandon the block currently being mined, leaving its transactions pending
+     */
+    public void cancelMining() {
+        miningCancelled.set(true);
+    }
+
+    /**
+     * Check if the blockchain is valid.
+     * Archived blocks are not checked; the oldest remaining block is trusted.
      *
      * @return True if the blockchain is valid
      */
     public boolean isChainValid() {
-        // Iterate through the chain (skipping genesis block)
-        for (int i = 1; i < chain.size(); i++) {
-            Block currentBlock = chain.get(i);
-            Block previousBlock = chain.get(i - 1);
-            
-            // Check if the current block's hash is valid
-            if (!currentBlock.getHash().equals(currentBlock.calculateHash())) {
-                System.out.println("Invalid hash for block " + i);
-                return false;
+        int first = store.firstIndex();
+        return findFirstInvalidBlock(first + 1, store.read(first).getHash(), store.size()) < 0;
+    }
+
+    /**
+     * Validate a contiguous range of blocks
+     *
+     * @param fromIndex The index of the first block to check
+     * @param previousHash The trusted hash of the block before the range
+     * @param toIndex The index after the last block to check
+     * @return The index of the first invalid block, or -1 if every block is valid
+     */
+    public int findFirstInvalidBlock(int fromIndex, String previousHash, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            Block currentBlock = store.read(i);
+            if (!isBlockValid(currentBlock, previousHash)) {
+                return i;
             }
-            
-            // Check if the current block points to the correct previous block
-            if (!currentBlock.getPreviousHash().equals(previousBlock.getHash())) {
-                System.out.println("Invalid previous hash for block " + i);
-                return false;
+            previousHash = currentBlock.getHash();
+        }
+        return -1;
+    }
+
+    /**
+     * Drop the transactions of a block being sealed whose signatures do not verify
+     */
+    private void rejectUnsigned(Block block) {
+        List<Transaction> transactions = block.getTransactions();
+        boolean[] valid = signatureVerifier.verify(transactions);
+        List<Transaction> accepted = new ArrayList<>(transactions.size());
+        for (int i = 0; i < valid.length; i++) {
+            if (valid[i]) {
+                accepted.add(transactions.get(i));
+            } else {
+                System.out.println("Rejected transaction " + transactions.get(i).getTransactionId() + " with an invalid signature");
             }
         }
-        
+        if (accepted.size() < transactions.size()) {
+            block.setTransactions(accepted);
+        }
+    }
+
+    /**
+     * Check a single block against the hash of its predecessor
+     *
+     * @param block The block to check
+     * @param previousHash The hash of the previous block
+     * @return True if the block is valid
+     */
+    private boolean isBlockValid(Block block, String previousHash) {
+        // Check if the block's transactions match its Merkle root
+        if (!block.getMerkleRoot().equals(block.calculateMerkleRoot())) {
+            System.out.println("Invalid Merkle root for block " + block.getIndex());
+            return false;
+        }
+
+        // Check if the current block's hash is valid
+        if (!block.hasValidHash()) {
+            System.out.println("Invalid hash for block " + block.getIndex());
+            return false;
+        }
+
+        // Check if the current block points to the correct previous block
+        if (!block.getPreviousHash().equals(previousHash)) {
+            System.out.println("Invalid previous hash for block " + block.getIndex());
+            return false;
+        }
+
+        // Check the transaction signatures last, as they are the most expensive to verify
+        if (signatureVerifier != null && !signatureVerifier.verifyAll(block.getTransactions())) {
+            System.out.println("Invalid transaction signature in block " + block.getIndex());
+            return false;
+        }
+
         return true;
     }
 
+    /**
+     * Check whether a transaction has been sealed into a block that has not been archived
+     *
+     * @param transactionId The ID of the transaction
+     * @return True if the transaction is on the chain
+     */
+    public boolean containsTransaction(String transactionId) {
+        return transactionId != null && index.containsTransaction(transactionId);
+    }
+
+    /**
+     * Build the inclusion proof for a transaction
+     *
+     * @param blockIndex The index of the block containing the transaction
+     * @param transactionId The ID of the transaction
+     * @return The inclusion proof, or null if the transaction is not in the block
+     */
+    public MerkleProof getMerkleProof(int blockIndex, String transactionId) {
+        return store.read(blockIndex).getMerkleProof(transactionId);
+    }
+
     /**
      * Get all transactions for a specific user
      *
@@ -132,19 +561,19 @@ public class Blockchain {
      * @return A list of transactions involving the user
      */
     public List<Transaction> getTransactionsForUser(Long userId) {
-        List<Transaction> userTransactions = new ArrayList<>();
-        
-        // Iterate through all blocks (except genesis block)
-        for (int i = 1; i < chain.size(); i++) {
-            Block block = chain.get(i);
-            
-            // Add transactions involving the user
-            userTransactions.addAll(block.getTransactions().stream()
-                    .filter(transaction -> transaction.getUserId().equals(userId))
-                    .collect(Collectors.toList()));
-        }
-        
-        return userTransactions;
+        return getTransactionsForUser(userId, 0, Integer.MAX_VALUE).getItems();
+    }
+
+    /**
+     * Get a page of the transactions for a specific user
+     *
+     * @param userId The ID of the user
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions involving the user, in chain order
+     */
+    public LedgerPage<Transaction> getTransactionsForUser(Long userId, int offset, int limit) {
+        return resolve(index.findByUser(userId, offset, limit));
     }
 
     /**
@@ -154,19 +583,19 @@ public class Blockchain {
      * @return A list of transactions involving the book
      */
     public List<Transaction> getTransactionsForBook(Long bookId) {
-        List<Transaction> bookTransactions = new ArrayList<>();
-        
-        // Iterate through all blocks (except genesis block)
-        for (int i = 1; i < chain.size(); i++) {
-            Block block = chain.get(i);
-            
-            // Add transactions involving the book
-            bookTransactions.addAll(block.getTransactions().stream()
-                    .filter(transaction -> transaction.getBookId().equals(bookId))
-                    .collect(Collectors.toList()));
-        }
-        
-        return bookTransactions;
+        return getTransactionsForBook(bookId, 0, Integer.MAX_VALUE).getItems();
+    }
+
+    /**
+     * Get a page of the transactions for a specific book
+     *
+     * @param bookId The ID of the book
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions involving the book, in chain order
+     */
+    public LedgerPage<Transaction> getTransactionsForBook(Long bookId, int offset, int limit) {
+        return resolve(index.findByBook(bookId, offset, limit));
     }
 
     /**
@@ -176,29 +605,111 @@ public class Blockchain {
      * @return A list of transactions of the specified type
      */
     public List<Transaction> getTransactionsByType(String type) {
-        List<Transaction> typeTransactions = new ArrayList<>();
-        
-        // Iterate through all blocks (except genesis block)
-        for (int i = 1; i < chain.size(); i++) {
-            Block block = chain.get(i);
-            
-            // Add transactions of the specified type
-            typeTransactions.addAll(block.getTransactions().stream()
-                    .filter(transaction -> transaction.getType().equals(type))
-                    .collect(Collectors.toList()));
+        return getTransactionsByType(type, 0, Integer.MAX_VALUE).getItems();
+    }
+
+    /**
+     * Get a page of the transactions of a specific type
+     *
+     * @param type The type of transaction
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions of the specified type, in chain order
+     */
+    public LedgerPage<Transaction> getTransactionsByType(String type, int offset, int limit) {
+        return resolve(index.findByType(type, offset, limit));
+    }
+
+    /**
+     * Get a page of the transactions created within a time range
+     *
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, inclusive
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions in timestamp order
+     */
+    public LedgerPage<Transaction> getTransactionsBetween(LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        return resolve(index.findByTimeRange(from, to, offset, limit));
+    }
+
+    /**
+     * Load the transactions referenced by a page of index locators.
+     * Consecutive locators in the same block share a single block read.
+     */
+    private LedgerPage<Transaction> resolve(LedgerPage<Long> locators) {
+        List<Transaction> transactions = new ArrayList<>(locators.getItems().size());
+        Block block = null;
+        for (long locator : locators.getItems()) {
+            int blockIndex = LedgerIndex.blockIndex(locator);
+            if (block == null || block.getIndex() != blockIndex) {
+                block = store.read(blockIndex);
+            }
+            transactions.add(block.getTransactions().get(LedgerIndex.position(locator)));
         }
-        
-        return typeTransactions;
+        return new LedgerPage<>(transactions, locators.getOffset(), locators.getLimit(), locators.getTotal());
     }
 
     // Getters and setters
     
+    /**
+     * Get a read-only view of the chain.
+     * Blocks are read from the block store on access rather than held in memory, and
+     * archived blocks cannot be read.
+     *
+     * @return The blocks of the chain
+     */
     public List<Block> getChain() {
-        return chain;
+        return new AbstractList<Block>() {
+            @Override
+            public Block get(int index) {
+                return store.read(index);
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+    }
+
+    /**
+     * Close the underlying block store
+     */
+    public void close() {
+        store.close();
+    }
+
+    public Miner getMiner() {
+        return miner;
+    }
+
+    public void setMiner(Miner miner) {
+        this.miner = miner;
     }
 
-    public void setChain(List<Block> chain) {
-        this.chain = chain;
+    public SignatureVerifier getSignatureVerifier() {
+        return signatureVerifier;
+    }
+
+    /**
+     * Set the verifier for transaction signatures.
+     * Without one, signatures are neither checked when sealing nor during verification.
+     *
+     * @param signatureVerifier The verifier, or null to skip signature checks
+     */
+    public void setSignatureVerifier(SignatureVerifier signatureVerifier) {
+        this.signatureVerifier = signatureVerifier;
+    }
+
+    /**
+     * Set the keys the chain signs its mining rewards with, which must match the
+     * signature verifier's key for sealed blocks to verify
+     *
+     * @param ledgerKeys The keys, or null to leave rewards unsigned
+     */
+    public void setLedgerKeys(LedgerKeys ledgerKeys) {
+        this.ledgerKeys = ledgerKeys;
     }
 
     public int getDifficulty() {
@@ -209,12 +720,13 @@ public class Blockchain {
         this.difficulty = difficulty;
     }
 
+    /**
+     * Get a snapshot of the pending transactions
+     *
+     * @return The pending transactions, oldest first
+     */
     public List<Transaction> getPendingTransactions() {
-        return pendingTransactions;
-    }
-
-    public void setPendingTransactions(List<Transaction> pendingTransactions) {
-        this.pendingTransactions = pendingTransactions;
+        return new ArrayList<>(pendingTransactions);
     }
 
     public String getMiningReward() {
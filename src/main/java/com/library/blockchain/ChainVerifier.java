@@ -0,0 +1,206 @@
+package com.library.blockchain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+/**
+ * Verifies the chain incrementally from a persisted checkpoint.
+ *
+ * Incremental verification only checks blocks appended since the checkpoint, linking the
+ * first of them to the checkpointed hash, and then advances the checkpoint. A full audit
+ * re-checks the chain from genesis (or the oldest unarchived block) up to the size the
+ * chain had when the audit started, and is meant to run in the background. It reads the
+ * blocks without holding the verifier's lock, so incremental checks and status reads are
+ * not held up for the length of the audit, and its outcome is published in one step when
+ * it finishes. Once any verification finds an invalid block the chain stays reported as
+ * invalid until a later full audit covering that block passes.
+ */
+public class ChainVerifier {
+    private final Blockchain blockchain;
+    private final Path checkpointFile;
+    private final Object auditLock = new Object();
+    private VerificationCheckpoint checkpoint;
+    private Integer firstInvalidBlock;
+    private LocalDateTime lastFullAudit;
+
+    /**
+     * Create a verifier
+     *
+     * @param blockchain The chain to verify
+     * @param checkpointFile The file holding the checkpoint, or null to keep it in memory only
+     */
+    public ChainVerifier(Blockchain blockchain, Path checkpointFile) {
+        this.blockchain = blockchain;
+        this.checkpointFile = checkpointFile;
+        this.checkpoint = loadCheckpoint();
+    }
+
+    /**
+     * Verify the blocks appended since the last checkpoint
+     *
+     * @return True if the chain is valid
+     */
+    public synchronized boolean verifyIncremental() {
+        if (firstInvalidBlock != null) {
+            return false;
+        }
+        int size = blockchain.size();
+        if (checkpoint.getBlockIndex() < blockchain.getFirstIndex()) {
+            // The checkpointed block has been archived; restart from the oldest remaining block
+            checkpoint = firstBlockCheckpoint();
+        }
+        if (checkpoint.getBlockIndex() == size - 1) {
+            return true;
+        }
+        return verifyFrom(checkpoint, size);
+    }
+
+    /**
+     * Verify the whole chain from genesis, regardless of the checkpoint.
+     * Only one audit runs at a time; the blocks appended while it runs are left to the
+     * incremental check.
+     *
+     * @return True if the chain is valid
+     */
+    public boolean verifyFull() {
+        synchronized (auditLock) {
+            VerificationCheckpoint start;
+            int size;
+            synchronized (this) {
+                start = firstBlockCheckpoint();
+                size = blockchain.size();
+            }
+
+            int invalid;
+            Block last;
+            try {
+                invalid = blockchain.findFirstInvalidBlock(start.getBlockIndex() + 1, start.getBlockHash(), size);
+                last = blockchain.getBlock(size - 1);
+            } catch (IndexOutOfBoundsException e) {
+                if (blockchain.getFirstIndex() <= start.getBlockIndex()) {
+                    throw e;
+                }
+                // Blocks were archived under the audit; keep the previous outcome
+                System.out.println("Blockchain audit abandoned as blocks were archived while it ran");
+                return getFirstInvalidBlock() == null;
+            }
+
+            synchronized (this) {
+                if (invalid >= 0) {
+                    firstInvalidBlock = invalid;
+                } else {
+                    if (firstInvalidBlock != null && firstInvalidBlock < size) {
+                        firstInvalidBlock = null;
+                    }
+                    if (checkpoint.getBlockIndex() < last.getIndex()) {
+                        saveCheckpoint(new VerificationCheckpoint(last.getIndex(), last.getHash(), LocalDateTime.now()));
+                    }
+                }
+                lastFullAudit = LocalDateTime.now();
+                return firstInvalidBlock == null;
+            }
+        }
+    }
+
+    private boolean verifyFrom(VerificationCheckpoint start, int size) {
+        int invalid = blockchain.findFirstInvalidBlock(start.getBlockIndex() + 1, start.getBlockHash(), size);
+        if (invalid >= 0) {
+            firstInvalidBlock = invalid;
+            return false;
+        }
+        Block last = blockchain.getBlock(size - 1);
+        saveCheckpoint(new VerificationCheckpoint(last.getIndex(), last.getHash(), LocalDateTime.now()));
+        return true;
+    }
+
+    /**
+     * Get the last checkpoint
+     *
+     * @return The checkpoint
+     */
+    public synchronized VerificationCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Get the first block found to be invalid
+     *
+     * @return The index of the invalid block, or null if none has been found
+     */
+    public synchronized Integer getFirstInvalidBlock() {
+        return firstInvalidBlock;
+    }
+
+    /**
+     * Get the time of the last full audit
+     *
+     * @return The completion time of the last full audit, or null if none has run
+     */
+    public synchronized LocalDateTime getLastFullAudit() {
+        return lastFullAudit;
+    }
+
+    /**
+     * Get the starting point for verification: the genesis block, or the oldest block that
+     * has not been archived
+     */
+    private VerificationCheckpoint firstBlockCheckpoint() {
+        Block first = blockchain.getBlock(blockchain.getFirstIndex());
+        return new VerificationCheckpoint(first.getIndex(), first.getHash(), null);
+    }
+
+    /**
+     * Load the persisted checkpoint, falling back to genesis if it is missing or no longer
+     * matches the chain (for example after the ledger tail was recovered)
+     */
+    private VerificationCheckpoint loadCheckpoint() {
+        if (checkpointFile == null || !Files.exists(checkpointFile)) {
+            return firstBlockCheckpoint();
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read verification checkpoint " + checkpointFile, e);
+        }
+
+        int blockIndex = Integer.parseInt(properties.getProperty("blockIndex", "0"));
+        String blockHash = properties.getProperty("blockHash");
+        if (blockIndex < blockchain.getFirstIndex() || blockIndex >= blockchain.size()
+                || !blockchain.getBlock(blockIndex).getHash().equals(blockHash)) {
+            System.out.println("Discarding verification checkpoint at block " + blockIndex);
+            return firstBlockCheckpoint();
+        }
+        return new VerificationCheckpoint(blockIndex, blockHash, LocalDateTime.parse(properties.getProperty("verifiedAt")));
+    }
+
+    private void saveCheckpoint(VerificationCheckpoint newCheckpoint) {
+        checkpoint = newCheckpoint;
+        if (checkpointFile == null) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("blockIndex", String.valueOf(newCheckpoint.getBlockIndex()));
+        properties.setProperty("blockHash", newCheckpoint.getBlockHash());
+        properties.setProperty("verifiedAt", newCheckpoint.getVerifiedAt().toString());
+
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "Ledger verification checkpoint");
+            }
+            Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write verification checkpoint " + checkpointFile, e);
+        }
+    }
+}
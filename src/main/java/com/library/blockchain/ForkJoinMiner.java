@@ -0,0 +1,132 @@
+package com.library.blockchain;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Miner that splits the nonce space across the workers of a fork-join pool.
+ *
+ * The range of non-negative nonces is divided recursively until slices are small
+ * enough to scan on one thread; idle workers steal the remaining large slices, so
+ * the search spreads over distant regions of the nonce space. The first worker to
+ * find a valid nonce stops all others, as does cancellation.
+ */
+public class ForkJoinMiner implements Miner {
+    private static final int SLICE_SIZE = 1 << 14;
+    private static final int CANCELLATION_CHECK_INTERVAL = 1024;
+    private static final int NOT_FOUND = -1;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a miner that runs on its own pool
+     *
+     * @param parallelism The number of mining threads
+     */
+    public ForkJoinMiner(int parallelism) {
+        this(new ForkJoinPool(parallelism));
+    }
+
+    /**
+     * Create a miner that runs on an existing pool
+     *
+     * @param pool The pool to mine on
+     */
+    public ForkJoinMiner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public boolean mine(Block block, int difficulty, AtomicBoolean cancelled) {
+        // Compute the Merkle root once before the workers share the block
+        block.getMerkleRoot();
+
+        Search search = new Search(block, difficulty, cancelled);
+        pool.invoke(new NonceRange(search, 0, Integer.MAX_VALUE + 1L));
+
+        int nonce = search.result.get();
+        if (nonce == NOT_FOUND) {
+            if (cancelled.get()) {
+                return false;
+            }
+            throw new IllegalStateException("No nonce meets difficulty " + difficulty + " for block " + block.getIndex());
+        }
+
+        byte[] hash = new byte[HashUtils.HASH_LENGTH];
+        new BlockHasher(block).hash(nonce, hash);
+        block.setNonce(nonce);
+        block.setHash(HashUtils.toHex(hash));
+        return true;
+    }
+
+    /**
+     * Shut down the mining pool
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * State shared by all slices of one search
+     */
+    private static final class Search {
+        private final Block block;
+        private final int difficulty;
+        private final AtomicBoolean cancelled;
+        private final AtomicInteger result = new AtomicInteger(NOT_FOUND);
+        private final ThreadLocal<BlockHasher> hashers;
+
+        Search(Block block, int difficulty, AtomicBoolean cancelled) {
+            this.block = block;
+            this.difficulty = difficulty;
+            this.cancelled = cancelled;
+            this.hashers = ThreadLocal.withInitial(() -> new BlockHasher(block));
+        }
+
+        boolean isFinished() {
+            return result.get() != NOT_FOUND || cancelled.get();
+        }
+    }
+
+    /**
+     * A slice of the nonce space, from inclusive to exclusive
+     */
+    private static final class NonceRange extends RecursiveAction {
+        private final Search search;
+        private final long from;
+        private final long to;
+
+        NonceRange(Search search, long from, long to) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.isFinished()) {
+                return;
+            }
+            if (to - from > SLICE_SIZE) {
+                long middle = (from + to) >>> 1;
+                invokeAll(new NonceRange(search, from, middle), new NonceRange(search, middle, to));
+                return;
+            }
+
+            BlockHasher hasher = search.hashers.get();
+            byte[] hash = new byte[HashUtils.HASH_LENGTH];
+            for (long nonce = from; nonce < to; nonce++) {
+                hasher.hash((int) nonce, hash);
+                if (BlockHasher.meetsDifficulty(hash, search.difficulty)) {
+                    search.result.compareAndSet(NOT_FOUND, (int) nonce);
+                    return;
+                }
+                if (nonce % CANCELLATION_CHECK_INTERVAL == 0 && search.isFinished()) {
+                    return;
+                }
+            }
+        }
+    }
+}
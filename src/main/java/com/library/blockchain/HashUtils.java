@@ -0,0 +1,118 @@
+package com.library.blockchain;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 and hexadecimal helpers shared by the blockchain classes
+ */
+public final class HashUtils {
+    public static final int HASH_LENGTH = 32;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> THREAD_DIGEST = ThreadLocal.withInitial(HashUtils::newDigest);
+
+    private HashUtils() {
+    }
+
+    /**
+     * Create a new SHA-256 digest
+     *
+     * @return The digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get the SHA-256 digest reserved for the calling thread.
+     * Callers must complete (or reset) the digest before returning.
+     *
+     * @return The digest
+     */
+    public static MessageDigest threadDigest() {
+        return THREAD_DIGEST.get();
+    }
+
+    /**
+     * Hash data with SHA-256
+     *
+     * @param data The data to hash
+     * @return The 32-byte hash
+     */
+    public static byte[] sha256(byte[] data) {
+        return threadDigest().digest(data);
+    }
+
+    /**
+     * Convert bytes to a lowercase hexadecimal string
+     *
+     * @param bytes The bytes to convert
+     * @return The hexadecimal string
+     */
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Convert a hexadecimal string to bytes
+     *
+     * @param hex The hexadecimal string
+     * @return The decoded bytes
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Hex string has an odd length");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        fromHex(hex, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Decode a hexadecimal string into an existing buffer
+     *
+     * @param hex The hexadecimal string, of even length
+     * @param destination The buffer receiving the bytes
+     * @param offset The position in the buffer of the first byte
+     */
+    public static void fromHex(String hex, byte[] destination, int offset) {
+        for (int i = 0; i < hex.length() / 2; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hex string: " + hex);
+            }
+            destination[offset + i] = (byte) ((high << 4) | low);
+        }
+    }
+
+    /**
+     * Compare bytes with a hexadecimal string without decoding it
+     *
+     * @param bytes The bytes
+     * @param hex The hexadecimal string, in lowercase
+     * @return True if the string is the hex encoding of the bytes
+     */
+    public static boolean matchesHex(byte[] bytes, String hex) {
+        if (hex == null || hex.length() != bytes.length * 2) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (hex.charAt(i * 2) != HEX_DIGITS[(bytes[i] >> 4) & 0xf]
+                    || hex.charAt(i * 2 + 1) != HEX_DIGITS[bytes[i] & 0xf]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
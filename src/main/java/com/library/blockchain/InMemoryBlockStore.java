@@ -0,0 +1,35 @@
+package com.library.blockchain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Block store that keeps every block on the heap.
+ * Used when ledger persistence is disabled; the chain is lost on restart.
+ */
+public class InMemoryBlockStore implements BlockStore {
+    private final List<Block> blocks = new ArrayList<>();
+
+    @Override
+    public synchronized int size() {
+        return blocks.size();
+    }
+
+    @Override
+    public synchronized Block read(int index) {
+        return blocks.get(index);
+    }
+
+    @Override
+    public synchronized void append(Block block) {
+        if (block.getIndex() != blocks.size()) {
+            throw new IllegalArgumentException("Expected block " + blocks.size() + " but got block " + block.getIndex());
+        }
+        blocks.add(block);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
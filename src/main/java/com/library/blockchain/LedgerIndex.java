@@ -0,0 +1,456 @@
+package com.library.blockchain;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Secondary indexes over the sealed transactions of the chain.
+ *
+ * Every transaction is identified by a locator packing its block index and its position
+ * within the block. Posting lists keyed by user, book and type, plus a timestamp-sorted
+ * array of locators, are extended as blocks are sealed so lookups only touch the blocks
+ * that hold matching transactions. Transaction IDs are indexed too, so a transaction that
+ * is already on the chain is not sealed a second time. A time range is found by binary search on both of its
+ * bounds, so a page costs the same however wide the range is. The index is saved with
+ * each state snapshot and read back on restart, so only the blocks sealed after the
+ * snapshot have to be decoded again.
+ */
+public class LedgerIndex {
+    private static final byte SNAPSHOT_VERSION = 2;
+
+    private final Map<String, Long> byTransactionId = new HashMap<>();
+    private final Map<Long, PostingList> byUser = new HashMap<>();
+    private final Map<Long, PostingList> byBook = new HashMap<>();
+    private final Map<String, PostingList> byType = new HashMap<>();
+    private LocalDateTime[] times = new LocalDateTime[16];
+    private long[] timeLocators = new long[16];
+    private int timeCount;
+    private int blockCount;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add the transactions of a sealed block to the indexes
+     *
+     * @param block The block to index
+     */
+    public void indexBlock(Block block) {
+        List<Transaction> transactions = block.getTransactions();
+        lock.writeLock().lock();
+        try {
+            TimeEntry[] entries = new TimeEntry[transactions.size()];
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                long locator = locator(block.getIndex(), i);
+                if (transaction.getTransactionId() != null) {
+                    byTransactionId.put(transaction.getTransactionId(), locator);
+                }
+                if (transaction.getUserId() != null) {
+                    byUser.computeIfAbsent(transaction.getUserId(), key -> new PostingList()).add(locator);
+                }
+                if (transaction.getBookId() != null) {
+                    byBook.computeIfAbsent(transaction.getBookId(), key -> new PostingList()).add(locator);
+                }
+                if (transaction.getType() != null) {
+                    byType.computeIfAbsent(transaction.getType(), key -> new PostingList()).add(locator);
+                }
+                entries[i] = new TimeEntry(transaction.getTimestamp(), locator);
+            }
+            addTimes(entries);
+            blockCount = Math.max(blockCount, block.getIndex() + 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether a transaction has been sealed into an indexed block
+     *
+     * @param transactionId The ID of the transaction
+     * @return True if the transaction is on the chain
+     */
+    public boolean containsTransaction(String transactionId) {
+        lock.readLock().lock();
+        try {
+            return byTransactionId.containsKey(transactionId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the transactions involving a user
+     *
+     * @param userId The ID of the user
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of matches to return
+     * @return A page of transaction locators in chain order
+     */
+    public LedgerPage<Long> findByUser(Long userId, int offset, int limit) {
+        return page(byUser, userId, offset, limit);
+    }
+
+    /**
+     * Find the transactions involving a book
+     *
+     * @param bookId The ID of the book
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of matches to return
+     * @return A page of transaction locators in chain order
+     */
+    public LedgerPage<Long> findByBook(Long bookId, int offset, int limit) {
+        return page(byBook, bookId, offset, limit);
+    }
+
+    /**
+     * Find the transactions of a type
+     *
+     * @param type The type of transaction
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of matches to return
+     * @return A page of transaction locators in chain order
+     */
+    public LedgerPage<Long> findByType(String type, int offset, int limit) {
+        return page(byType, type, offset, limit);
+    }
+
+    /**
+     * Find the transactions created within a time range
+     *
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, inclusive
+     * @param offset The number of matches to skip
+     * @param limit The maximum number of matches to return
+     * @return A page of transaction locators in timestamp order
+     */
+    public LedgerPage<Long> findByTimeRange(LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (from.isAfter(to)) {
+                return new LedgerPage<>(List.of(), offset, limit, 0);
+            }
+            int start = firstTimeAfter(from, false);
+            int end = firstTimeAfter(to, true);
+
+            int pageStart = (int) Math.min((long) start + offset, end);
+            int pageEnd = (int) Math.min((long) pageStart + limit, end);
+            List<Long> locators = new ArrayList<>(pageEnd - pageStart);
+            for (int i = pageStart; i < pageEnd; i++) {
+                locators.add(timeLocators[i]);
+            }
+            return new LedgerPage<>(locators, offset, limit, end - start);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <K> LedgerPage<Long> page(Map<K, PostingList> index, K key, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            PostingList postings = index.get(key);
+            if (postings == null) {
+                return new LedgerPage<>(List.of(), offset, limit, 0);
+            }
+
+            int end = (int) Math.min((long) offset + limit, postings.size);
+            List<Long> locators = new ArrayList<>(Math.max(end - offset, 0));
+            for (int i = offset; i < end; i++) {
+                locators.add(postings.values[i]);
+            }
+            return new LedgerPage<>(locators, offset, limit, postings.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of blocks covered by the index
+     *
+     * @return The index of the block after the last indexed block
+     */
+    public int getBlockCount() {
+        lock.readLock().lock();
+        try {
+            return blockCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop the transactions of the blocks before an index, such as blocks that were archived
+     *
+     * @param firstBlock The index of the first block to keep
+     */
+    public void retainFrom(int firstBlock) {
+        long firstLocator = locator(firstBlock, 0);
+        lock.writeLock().lock();
+        try {
+            byTransactionId.values().removeIf(locator -> locator < firstLocator);
+            retainFrom(byUser, firstLocator);
+            retainFrom(byBook, firstLocator);
+            retainFrom(byType, firstLocator);
+            int kept = 0;
+            for (int i = 0; i < timeCount; i++) {
+                if (timeLocators[i] >= firstLocator) {
+                    times[kept] = times[i];
+                    timeLocators[kept++] = timeLocators[i];
+                }
+            }
+            Arrays.fill(times, kept, timeCount, null);
+            timeCount = kept;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the index to a snapshot
+     *
+     * @param out The stream to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeByte(SNAPSHOT_VERSION);
+            out.writeInt(blockCount);
+            out.writeInt(byTransactionId.size());
+            for (Map.Entry<String, Long> entry : byTransactionId.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.writeInt(byUser.size());
+            for (Map.Entry<Long, PostingList> entry : byUser.entrySet()) {
+                out.writeLong(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+            out.writeInt(byBook.size());
+            for (Map.Entry<Long, PostingList> entry : byBook.entrySet()) {
+                out.writeLong(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+            out.writeInt(byType.size());
+            for (Map.Entry<String, PostingList> entry : byType.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+            out.writeInt(timeCount);
+            for (int i = 0; i < timeCount; i++) {
+                out.writeLong(times[i].toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(times[i].getNano());
+                out.writeLong(timeLocators[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read an index previously written by {@link #writeTo(DataOutputStream)}
+     *
+     * @param in The stream to read from
+     * @return The index
+     * @throws IOException If reading fails
+     */
+    public static LedgerIndex readFrom(DataInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IllegalStateException("Unsupported ledger index snapshot version " + version);
+        }
+        LedgerIndex index = new LedgerIndex();
+        index.blockCount = in.readInt();
+        int transactions = in.readInt();
+        for (int i = 0; i < transactions; i++) {
+            index.byTransactionId.put(in.readUTF(), in.readLong());
+        }
+        int users = in.readInt();
+        for (int i = 0; i < users; i++) {
+            index.byUser.put(in.readLong(), PostingList.readFrom(in));
+        }
+        int books = in.readInt();
+        for (int i = 0; i < books; i++) {
+            index.byBook.put(in.readLong(), PostingList.readFrom(in));
+        }
+        int types = in.readInt();
+        for (int i = 0; i < types; i++) {
+            index.byType.put(in.readUTF(), PostingList.readFrom(in));
+        }
+        int count = in.readInt();
+        index.times = new LocalDateTime[Math.max(count, 16)];
+        index.timeLocators = new long[index.times.length];
+        for (int i = 0; i < count; i++) {
+            index.times[i] = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            index.timeLocators[i] = in.readLong();
+        }
+        index.timeCount = count;
+        return index;
+    }
+
+    /**
+     * Merge the entries of a block into the timestamp-sorted array. Blocks are usually sealed
+     * in time order, so their entries are simply appended; older timestamps (such as
+     * backfilled history) are merged in from the end, after existing equal timestamps.
+     */
+    private void addTimes(TimeEntry[] entries) {
+        Arrays.sort(entries, Comparator.comparing(entry -> entry.time));
+        int required = timeCount + entries.length;
+        if (required > times.length) {
+            int capacity = Math.max(required, times.length * 2);
+            times = Arrays.copyOf(times, capacity);
+            timeLocators = Arrays.copyOf(timeLocators, capacity);
+        }
+
+        int existing = timeCount - 1;
+        int write = required - 1;
+        for (int added = entries.length - 1; added >= 0; added--) {
+            while (existing >= 0 && times[existing].isAfter(entries[added].time)) {
+                times[write] = times[existing];
+                timeLocators[write--] = timeLocators[existing--];
+            }
+            times[write] = entries[added].time;
+            timeLocators[write--] = entries[added].locator;
+        }
+        timeCount = required;
+    }
+
+    /**
+     * Binary search the timestamp-sorted array
+     *
+     * @param bound The timestamp to search for
+     * @param inclusive True to also skip the timestamps equal to the bound
+     * @return The position of the first timestamp after the bound (or, if not inclusive, at it)
+     */
+    private int firstTimeAfter(LocalDateTime bound, boolean inclusive) {
+        int low = 0;
+        int high = timeCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = times[middle].compareTo(bound);
+            if (comparison < 0 || (inclusive && comparison == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static <K> void retainFrom(Map<K, PostingList> index, long firstLocator) {
+        Iterator<PostingList> postings = index.values().iterator();
+        while (postings.hasNext()) {
+            PostingList list = postings.next();
+            list.dropBefore(firstLocator);
+            if (list.size == 0) {
+                postings.remove();
+            }
+        }
+    }
+
+    /**
+     * Pack a transaction position into a locator
+     *
+     * @param blockIndex The index of the block
+     * @param position The position of the transaction within the block
+     * @return The locator
+     */
+    public static long locator(int blockIndex, int position) {
+        return ((long) blockIndex << 32) | (position & 0xffffffffL);
+    }
+
+    /**
+     * Get the block index from a locator
+     *
+     * @param locator The locator
+     * @return The index of the block
+     */
+    public static int blockIndex(long locator) {
+        return (int) (locator >>> 32);
+    }
+
+    /**
+     * Get the position within the block from a locator
+     *
+     * @param locator The locator
+     * @return The position of the transaction within its block
+     */
+    public static int position(long locator) {
+        return (int) locator;
+    }
+
+    /**
+     * Growable array of locators, appended in chain order
+     */
+    private static final class PostingList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long locator) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = locator;
+        }
+
+        /**
+         * Drop the locators below a bound, which form a prefix as locators only grow
+         */
+        void dropBefore(long firstLocator) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < firstLocator) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            if (low > 0) {
+                System.arraycopy(values, low, values, 0, size - low);
+                size -= low;
+            }
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(values[i]);
+            }
+        }
+
+        static PostingList readFrom(DataInputStream in) throws IOException {
+            PostingList list = new PostingList();
+            list.size = in.readInt();
+            list.values = new long[Math.max(list.size, 4)];
+            for (int i = 0; i < list.size; i++) {
+                list.values[i] = in.readLong();
+            }
+            return list;
+        }
+    }
+
+    /**
+     * A transaction's timestamp and locator, while a block is merged into the time index
+     */
+    private static final class TimeEntry {
+        private final LocalDateTime time;
+        private final long locator;
+
+        TimeEntry(LocalDateTime time, long locator) {
+            this.time = time;
+            this.locator = locator;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.blockchain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * The Ed25519 key pair the library signs ledger transactions with
+ */
+public class LedgerKeys {
+    public static final String ALGORITHM = "Ed25519";
+
+    private static final String PRIVATE_KEY_FILE = "ledger-signing.key";
+    private static final String PUBLIC_KEY_FILE = "ledger-signing.pub";
+
+    private final KeyPair keyPair;
+
+    private LedgerKeys(KeyPair keyPair) {
+        this.keyPair = keyPair;
+    }
+
+    /**
+     * Generate a new key pair that is not persisted
+     *
+     * @return The keys
+     */
+    public static LedgerKeys generate() {
+        try {
+            return new LedgerKeys(KeyPairGenerator.getInstance(ALGORITHM).generateKeyPair());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ed25519 is not available", e);
+        }
+    }
+
+    /**
+     * Load the key pair from a directory, generating and saving one if neither key file
+     * exists yet. A directory holding only one of the files is an error rather than a reason
+     * to replace it, since a new public key would fail every signature already on the chain.
+     * The private key file is written first and is readable by the owner only where the file
+     * system allows it.
+     *
+     * @param directory The directory holding the key files
+     * @return The keys
+     * @throws IllegalStateException If only one of the key files exists
+     */
+    public static LedgerKeys loadOrCreate(Path directory) {
+        Path privateKeyFile = directory.resolve(PRIVATE_KEY_FILE);
+        Path publicKeyFile = directory.resolve(PUBLIC_KEY_FILE);
+        try {
+            boolean hasPrivateKey = Files.exists(privateKeyFile);
+            boolean hasPublicKey = Files.exists(publicKeyFile);
+            if (hasPrivateKey && hasPublicKey) {
+                KeyFactory factory = KeyFactory.getInstance(ALGORITHM);
+                PrivateKey privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(Files.readAllBytes(privateKeyFile)));
+                PublicKey publicKey = factory.generatePublic(new X509EncodedKeySpec(Files.readAllBytes(publicKeyFile)));
+                return new LedgerKeys(new KeyPair(publicKey, privateKey));
+            }
+            if (hasPrivateKey || hasPublicKey) {
+                throw new IllegalStateException("Found " + (hasPrivateKey ? privateKeyFile : publicKeyFile)
+                        + " without " + (hasPrivateKey ? publicKeyFile : privateKeyFile)
+                        + "; restore the missing ledger signing key file");
+            }
+
+            LedgerKeys keys = generate();
+            Files.createDirectories(directory);
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.createFile(privateKeyFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            }
+            Files.write(privateKeyFile, keys.keyPair.getPrivate().getEncoded());
+            Files.write(publicKeyFile, keys.getPublicKey().getEncoded());
+            return keys;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load ledger signing keys from " + directory, e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid ledger signing keys in " + directory, e);
+        }
+    }
+
+    /**
+     * Sign a transaction with the private key
+     *
+     * @param transaction The transaction to sign
+     */
+    public void sign(Transaction transaction) {
+        transaction.sign(keyPair.getPrivate());
+    }
+
+    public PublicKey getPublicKey() {
+        return keyPair.getPublic();
+    }
+}
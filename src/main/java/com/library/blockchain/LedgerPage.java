@@ -0,0 +1,57 @@
+package com.library.blockchain;
+
+import java.util.List;
+
+/**
+ * One page of results from a ledger query
+ *
+ * @param <T> The type of the results
+ */
+public class LedgerPage<T> {
+    private final List<T> items;
+    private final int offset;
+    private final int limit;
+    private final long total;
+
+    /**
+     * Create a page of results
+     *
+     * @param items The results on this page
+     * @param offset The position of the first result in the full result set
+     * @param limit The maximum number of results per page
+     * @param total The size of the full result set
+     */
+    public LedgerPage(List<T> items, int offset, int limit, long total) {
+        this.items = items;
+        this.offset = offset;
+        this.limit = limit;
+        this.total = total;
+    }
+
+    /**
+     * Check whether more results follow this page
+     *
+     * @return True if there is a next page
+     */
+    public boolean hasNext() {
+        return offset + items.size() < total;
+    }
+
+    // Getters
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
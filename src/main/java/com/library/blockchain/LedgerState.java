@@ -0,0 +1,191 @@
+package com.library.blockchain;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregate state derived from the ledger: transaction counts per user and per book, and
+ * the fines each user still owes.
+ *
+ * Fines are tracked in hundredths of the currency unit. FINE_ASSESSED transactions add
+ * their amount to a user's balance and FINE_PAYMENT transactions subtract it. The state
+ * root is the Merkle root over one leaf per entry, in a fixed order, so two nodes that
+ * applied the same blocks compute the same root.
+ */
+public class LedgerState {
+    public static final String FINE_ASSESSED = "FINE_ASSESSED";
+    public static final String FINE_PAYMENT = "FINE_PAYMENT";
+
+    private static final byte SNAPSHOT_VERSION = 1;
+    private static final byte BLOCK_COUNT_TAG = 0;
+    private static final byte USER_TAG = 1;
+    private static final byte BOOK_TAG = 2;
+    private static final byte FINE_TAG = 3;
+
+    private final Map<Long, Long> userTransactions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> bookTransactions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> outstandingFines = new ConcurrentHashMap<>();
+    private volatile int blockCount;
+
+    /**
+     * Apply the transactions of the next block
+     *
+     * @param block The block, whose index must equal the number of blocks applied so far
+     */
+    public void apply(Block block) {
+        if (block.getIndex() != blockCount) {
+            throw new IllegalArgumentException("Expected block " + blockCount + " but got block " + block.getIndex());
+        }
+        for (Transaction transaction : block.getTransactions()) {
+            if (transaction.getUserId() != null) {
+                userTransactions.merge(transaction.getUserId(), 1L, Long::sum);
+            }
+            if (transaction.getBookId() != null) {
+                bookTransactions.merge(transaction.getBookId(), 1L, Long::sum);
+            }
+            if (transaction.getUserId() != null && FINE_ASSESSED.equals(transaction.getType())) {
+                outstandingFines.merge(transaction.getUserId(), amountOf(transaction), Long::sum);
+            } else if (transaction.getUserId() != null && FINE_PAYMENT.equals(transaction.getType())) {
+                outstandingFines.merge(transaction.getUserId(), -amountOf(transaction), Long::sum);
+            }
+        }
+        blockCount++;
+    }
+
+    /**
+     * Get a transaction's amount in hundredths of the currency unit, zero if it has none
+     */
+    private static long amountOf(Transaction transaction) {
+        BigDecimal amount = transaction.getAmount();
+        if (amount == null) {
+            return 0;
+        }
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Get the number of blocks applied to the state
+     *
+     * @return The index of the next block to apply
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get the number of transactions involving a user
+     *
+     * @param userId The ID of the user
+     * @return The number of transactions
+     */
+    public long getUserTransactionCount(Long userId) {
+        return userTransactions.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Get the number of transactions involving a book
+     *
+     * @param bookId The ID of the book
+     * @return The number of transactions
+     */
+    public long getBookTransactionCount(Long bookId) {
+        return bookTransactions.getOrDefault(bookId, 0L);
+    }
+
+    /**
+     * Get the fines a user has been assessed but not yet paid
+     *
+     * @param userId The ID of the user
+     * @return The outstanding amount
+     */
+    public BigDecimal getOutstandingFine(Long userId) {
+        return BigDecimal.valueOf(outstandingFines.getOrDefault(userId, 0L), 2);
+    }
+
+    /**
+     * Compute the state root.
+     * Must not run concurrently with {@link #apply(Block)}.
+     *
+     * @return The 32-byte Merkle root of the state
+     */
+    public byte[] computeRoot() {
+        List<byte[]> leaves = new ArrayList<>();
+        leaves.add(leaf(BLOCK_COUNT_TAG, 0, blockCount));
+        addLeaves(leaves, USER_TAG, userTransactions);
+        addLeaves(leaves, BOOK_TAG, bookTransactions);
+        addLeaves(leaves, FINE_TAG, outstandingFines);
+        return new MerkleTree(leaves).getRoot();
+    }
+
+    private static void addLeaves(List<byte[]> leaves, byte tag, Map<Long, Long> entries) {
+        for (Map.Entry<Long, Long> entry : new TreeMap<>(entries).entrySet()) {
+            leaves.add(leaf(tag, entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private static byte[] leaf(byte tag, long key, long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES * 2);
+        buffer.put(tag).putLong(key).putLong(value);
+        return HashUtils.sha256(buffer.array());
+    }
+
+    /**
+     * Write the state to a snapshot.
+     * Must not run concurrently with {@link #apply(Block)}.
+     *
+     * @param out The stream to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(SNAPSHOT_VERSION);
+        out.writeInt(blockCount);
+        writeEntries(out, userTransactions);
+        writeEntries(out, bookTransactions);
+        writeEntries(out, outstandingFines);
+    }
+
+    /**
+     * Read a state previously written by {@link #writeTo(DataOutputStream)}
+     *
+     * @param in The stream to read from
+     * @return The state
+     * @throws IOException If reading fails
+     */
+    public static LedgerState readFrom(DataInputStream in) throws IOException {
+        byte version = in.readByte();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IllegalStateException("Unsupported ledger snapshot version " + version);
+        }
+        LedgerState state = new LedgerState();
+        state.blockCount = in.readInt();
+        readEntries(in, state.userTransactions);
+        readEntries(in, state.bookTransactions);
+        readEntries(in, state.outstandingFines);
+        return state;
+    }
+
+    private static void writeEntries(DataOutputStream out, Map<Long, Long> entries) throws IOException {
+        Map<Long, Long> sorted = new TreeMap<>(entries);
+        out.writeInt(sorted.size());
+        for (Map.Entry<Long, Long> entry : sorted.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static void readEntries(DataInputStream in, Map<Long, Long> entries) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            entries.put(in.readLong(), in.readLong());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.library.blockchain;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Proof that a transaction is included in a block.
+ * The transaction hash combined with each sibling hash in turn must reproduce the
+ * Merkle root committed to by the block hash.
+ */
+public class MerkleProof {
+    private final int blockIndex;
+    private final String blockHash;
+    private final String transactionId;
+    private final String transactionHash;
+    private final int leafIndex;
+    private final String merkleRoot;
+    private final List<Step> steps;
+
+    /**
+     * Create a new inclusion proof
+     *
+     * @param blockIndex The index of the block containing the transaction
+     * @param blockHash The hash of the block
+     * @param transactionId The ID of the transaction
+     * @param transactionHash The hash of the transaction (the Merkle leaf)
+     * @param leafIndex The position of the transaction in the block
+     * @param merkleRoot The Merkle root of the block
+     * @param steps The sibling hashes from the leaf up to the root
+     */
+    public MerkleProof(int blockIndex, String blockHash, String transactionId, String transactionHash,
+                       int leafIndex, String merkleRoot, List<Step> steps) {
+        this.blockIndex = blockIndex;
+        this.blockHash = blockHash;
+        this.transactionId = transactionId;
+        this.transactionHash = transactionHash;
+        this.leafIndex = leafIndex;
+        this.merkleRoot = merkleRoot;
+        this.steps = steps;
+    }
+
+    /**
+     * Check that the proof leads from the transaction hash to the Merkle root
+     *
+     * @return True if the proof is valid
+     */
+    public boolean verify() {
+        byte[] root = MerkleTree.computeRoot(HashUtils.fromHex(transactionHash), steps);
+        return Arrays.equals(root, HashUtils.fromHex(merkleRoot));
+    }
+
+    // Getters
+
+    public int getBlockIndex() {
+        return blockIndex;
+    }
+
+    public String getBlockHash() {
+        return blockHash;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getTransactionHash() {
+        return transactionHash;
+    }
+
+    public int getLeafIndex() {
+        return leafIndex;
+    }
+
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * A sibling hash on the path from a leaf to the root
+     */
+    public static class Step {
+        private final String hash;
+        private final boolean left;
+
+        /**
+         * Create a proof step
+         *
+         * @param hash The sibling hash
+         * @param left True if the sibling is the left child of its parent
+         */
+        public Step(String hash, boolean left) {
+            this.hash = hash;
+            this.left = left;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public boolean isLeft() {
+            return left;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.blockchain;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary Merkle tree over the transaction hashes of a block.
+ *
+ * Leaf nodes are {@code SHA-256(0x00 || transaction hash)} and interior nodes are
+ * {@code SHA-256(0x01 || left || right)}; the distinct prefixes keep an interior node from
+ * being passed off as a leaf. A level with an odd number of nodes promotes its last node
+ * to the next level unchanged rather than pairing it with itself, so no two different
+ * leaf lists (such as [a, b, c] and [a, b, c, c]) share a root. The root of an empty tree
+ * is 32 zero bytes.
+ */
+public class MerkleTree {
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private final List<byte[][]> levels = new ArrayList<>();
+
+    /**
+     * Build a Merkle tree
+     *
+     * @param leaves The leaf hashes, in block order
+     */
+    public MerkleTree(List<byte[]> leaves) {
+        MessageDigest digest = HashUtils.newDigest();
+        byte[][] level = new byte[leaves.size()][];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = hashLeaf(digest, leaves.get(i));
+        }
+        levels.add(level);
+
+        while (level.length > 1) {
+            byte[][] parent = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < parent.length; i++) {
+                byte[] left = level[i * 2];
+                // An unpaired last node moves up as it is
+                parent[i] = i * 2 + 1 < level.length ? hashNode(digest, left, level[i * 2 + 1]) : left;
+            }
+            levels.add(parent);
+            level = parent;
+        }
+    }
+
+    /**
+     * Get the root of the tree
+     *
+     * @return The 32-byte Merkle root
+     */
+    public byte[] getRoot() {
+        byte[][] top = levels.get(levels.size() - 1);
+        return top.length == 0 ? new byte[HashUtils.HASH_LENGTH] : top[0].clone();
+    }
+
+    /**
+     * Get the number of leaves in the tree
+     *
+     * @return The number of leaves
+     */
+    public int getLeafCount() {
+        return levels.get(0).length;
+    }
+
+    /**
+     * Build the inclusion proof for a leaf
+     *
+     * @param leafIndex The position of the leaf
+     * @return The sibling hashes from the leaf up to the root; levels where the path's node
+     *         has no sibling contribute no step
+     */
+    public List<MerkleProof.Step> getProof(int leafIndex) {
+        if (leafIndex < 0 || leafIndex >= getLeafCount()) {
+            throw new IndexOutOfBoundsException("No leaf at position " + leafIndex);
+        }
+
+        List<MerkleProof.Step> steps = new ArrayList<>();
+        int position = leafIndex;
+        for (int depth = 0; depth < levels.size() - 1; depth++) {
+            byte[][] level = levels.get(depth);
+            boolean isRightChild = (position & 1) == 1;
+            int siblingPosition = isRightChild ? position - 1 : position + 1;
+            if (siblingPosition < level.length) {
+                steps.add(new MerkleProof.Step(HashUtils.toHex(level[siblingPosition]), isRightChild));
+            }
+            position >>= 1;
+        }
+        return steps;
+    }
+
+    /**
+     * Recompute a Merkle root from a leaf and its inclusion proof
+     *
+     * @param leaf The leaf hash (the transaction hash, before the leaf prefix is applied)
+     * @param steps The sibling hashes from the leaf up to the root
+     * @return The root implied by the proof
+     */
+    public static byte[] computeRoot(byte[] leaf, List<MerkleProof.Step> steps) {
+        MessageDigest digest = HashUtils.newDigest();
+        byte[] current = hashLeaf(digest, leaf);
+        for (MerkleProof.Step step : steps) {
+            byte[] sibling = HashUtils.fromHex(step.getHash());
+            current = step.isLeft() ? hashNode(digest, sibling, current) : hashNode(digest, current, sibling);
+        }
+        return current;
+    }
+
+    private static byte[] hashLeaf(MessageDigest digest, byte[] leaf) {
+        digest.update(LEAF_PREFIX);
+        digest.update(leaf);
+        return digest.digest();
+    }
+
+    private static byte[] hashNode(MessageDigest digest, byte[] left, byte[] right) {
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+}
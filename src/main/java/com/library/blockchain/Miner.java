@@ -0,0 +1,20 @@
+package com.library.blockchain;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Strategy for finding a proof-of-work nonce for a block
+ */
+public interface Miner {
+
+    /**
+     * Search for a nonce whose block hash meets the difficulty.
+     * On success the nonce and hash are set on the block.
+     *
+     * @param block The block to mine; its transactions must not change while mining
+     * @param difficulty The number of leading zero hex digits required in the hash
+     * @param cancelled Set to true by another thread to abandon the search
+     * @return True if a nonce was found, false if mining was cancelled
+     */
+    boolean mine(Block block, int difficulty, AtomicBoolean cancelled);
+}
@@ -0,0 +1,52 @@
+package com.library.blockchain;
+
+import java.time.Duration;
+
+/**
+ * Decides when pending transactions are sealed into a block: as soon as enough of them
+ * are waiting, or once the oldest has waited long enough, whichever comes first
+ */
+public class SealingPolicy {
+    private final int maxTransactions;
+    private final Duration maxDelay;
+
+    /**
+     * Create a sealing policy
+     *
+     * @param maxTransactions The number of pending transactions that triggers a block
+     * @param maxDelay The longest a pending transaction may wait before a block is sealed
+     */
+    public SealingPolicy(int maxTransactions, Duration maxDelay) {
+        if (maxTransactions < 1) {
+            throw new IllegalArgumentException("A block must hold at least one transaction");
+        }
+        this.maxTransactions = maxTransactions;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Get how long to wait before a block should be sealed
+     *
+     * @param pendingCount The number of pending transactions
+     * @param oldestPendingAge How long the oldest pending transaction has been waiting
+     * @return Zero if a block should be sealed now, otherwise the time until one should be,
+     *         or null if nothing is pending
+     */
+    public Duration timeUntilSeal(int pendingCount, Duration oldestPendingAge) {
+        if (pendingCount == 0) {
+            return null;
+        }
+        if (pendingCount >= maxTransactions || oldestPendingAge.compareTo(maxDelay) >= 0) {
+            return Duration.ZERO;
+        }
+        return maxDelay.minus(oldestPendingAge);
+    }
+
+    public int getMaxTransactions() {
+        return maxTransactions;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+}
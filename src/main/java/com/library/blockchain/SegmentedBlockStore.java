@@ -0,0 +1,332 @@
+package com.library.blockchain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only block store backed by memory-mapped segment files.
+ *
+ * Each segment is a pair of pre-allocated files named after the index of its first block:
+ * a data file holding {@code [length][crc32][payload]} records and an offset index holding
+ * the end offset of every record. Only the offset index is consulted to locate a block, so
+ * the heap footprint does not grow with the length of the chain. On open, only the tail of
+ * the newest segment is verified; records that were written but not indexed before a crash
+ * are recovered and a torn final record is discarded.
+ *
+ * Whole segments other than the newest can be moved to an archive directory; the store then
+ * starts at the first block of its oldest remaining segment.
+ */
+public class SegmentedBlockStore implements BlockStore {
+    private static final String DATA_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MIN_RECORD_SIZE = 32;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private volatile int size;
+
+    /**
+     * Open (or create) a segmented block store
+     *
+     * @param directory The directory holding the segment files
+     * @param segmentSize The size in bytes of each data segment
+     */
+    public SegmentedBlockStore(Path directory, int segmentSize) {
+        if (segmentSize < MIN_RECORD_SIZE * 2) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        try {
+            Files.createDirectories(directory);
+            openSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open ledger segments in " + directory, e);
+        }
+    }
+
+    private void openSegments() throws IOException {
+        List<Long> baseIndexes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + DATA_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                baseIndexes.add(Long.parseLong(name.substring(0, name.length() - DATA_SUFFIX.length())));
+            }
+        }
+        baseIndexes.sort(null);
+        if (!baseIndexes.isEmpty()) {
+            size = Math.toIntExact(baseIndexes.get(0));
+        }
+
+        for (int i = 0; i < baseIndexes.size(); i++) {
+            int baseIndex = Math.toIntExact(baseIndexes.get(i));
+            if (baseIndex != size) {
+                throw new IllegalStateException("Ledger segment " + baseIndex + " does not follow block " + (size - 1));
+            }
+            boolean last = i == baseIndexes.size() - 1;
+            Segment segment = new Segment(baseIndex, last);
+            segments.add(segment);
+            size += segment.count;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int firstIndex() {
+        List<Segment> current = segments;
+        return current.isEmpty() ? size : current.get(0).baseIndex;
+    }
+
+    @Override
+    public Block read(int index) {
+        checkReadable(index);
+        Segment segment = segmentFor(index);
+        return BlockCodec.decode(segment.readRecord(index - segment.baseIndex));
+    }
+
+    @Override
+    public BlockSummary readSummary(int index) {
+        checkReadable(index);
+        Segment segment = segmentFor(index);
+        return BlockCodec.decodeSummary(segment.recordView(index - segment.baseIndex));
+    }
+
+    @Override
+    public synchronized void append(Block block) {
+        if (block.getIndex() != size) {
+            throw new IllegalArgumentException("Expected block " + size + " but got block " + block.getIndex());
+        }
+        byte[] payload = BlockCodec.encode(block);
+        if (payload.length + RECORD_HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Block " + block.getIndex() + " does not fit in a ledger segment");
+        }
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || !segment.hasRoomFor(payload.length)) {
+            try {
+                segment = new Segment(size, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create ledger segment " + size, e);
+            }
+            segments.add(segment);
+        }
+
+        segment.appendRecord(payload);
+        size++;
+    }
+
+    @Override
+    public synchronized int archiveBefore(int blockIndex, Path archiveDirectory) {
+        try {
+            Files.createDirectories(archiveDirectory);
+            // The newest segment is never archived, as it receives appends
+            while (segments.size() > 1 && segments.get(0).baseIndex + segments.get(0).count <= blockIndex) {
+                Segment segment = segments.remove(0);
+                segment.close();
+                String name = String.format("%020d", segment.baseIndex);
+                Files.move(directory.resolve(name + DATA_SUFFIX), archiveDirectory.resolve(name + DATA_SUFFIX),
+                        StandardCopyOption.REPLACE_EXISTING);
+                Files.move(directory.resolve(name + INDEX_SUFFIX), archiveDirectory.resolve(name + INDEX_SUFFIX),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive ledger segments to " + archiveDirectory, e);
+        }
+        return firstIndex();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private void checkReadable(int index) {
+        int first = firstIndex();
+        if (index < first || index >= size) {
+            throw new IndexOutOfBoundsException("Block " + index + " is not in the ledger (blocks "
+                    + first + " to " + (size - 1) + ")");
+        }
+    }
+
+    private Segment segmentFor(int index) {
+        // Search a stable copy, as segments may be archived concurrently
+        Segment[] current = segments.toArray(new Segment[0]);
+        int low = 0;
+        int high = current.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (current[mid].baseIndex <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (current.length == 0 || index < current[low].baseIndex) {
+            throw new IndexOutOfBoundsException("Block " + index + " has been archived");
+        }
+        return current[low];
+    }
+
+    /**
+     * A single data file and its offset index
+     */
+    private final class Segment {
+        private final int baseIndex;
+        private final FileChannel dataChannel;
+        private final FileChannel indexChannel;
+        private final MappedByteBuffer data;
+        private final MappedByteBuffer offsets;
+        private final int maxRecords;
+        private int count;
+        private int writePosition;
+
+        Segment(int baseIndex, boolean recoverTail) throws IOException {
+            this.baseIndex = baseIndex;
+            this.maxRecords = segmentSize / MIN_RECORD_SIZE;
+
+            String name = String.format("%020d", baseIndex);
+            this.dataChannel = FileChannel.open(directory.resolve(name + DATA_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.indexChannel = FileChannel.open(directory.resolve(name + INDEX_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            this.offsets = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) maxRecords * Integer.BYTES);
+
+            this.count = countIndexedRecords();
+            this.writePosition = count == 0 ? 0 : offsets.getInt((count - 1) * Integer.BYTES);
+            if (recoverTail) {
+                recoverTail();
+            }
+        }
+
+        /**
+         * Offsets are strictly increasing and unused entries are zero, so the number of
+         * indexed records can be found with a binary search.
+         */
+        private int countIndexedRecords() {
+            int low = 0;
+            int high = maxRecords;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (offsets.getInt(mid * Integer.BYTES) != 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void recoverTail() {
+            // Drop indexed records whose data did not reach the disk intact
+            while (count > 0 && !isValidRecord(recordStart(count - 1))) {
+                count--;
+                offsets.putInt(count * Integer.BYTES, 0);
+            }
+            writePosition = count == 0 ? 0 : offsets.getInt((count - 1) * Integer.BYTES);
+
+            // Index records that were written after the last index update
+            while (count < maxRecords && isValidRecord(writePosition)) {
+                writePosition += RECORD_HEADER_SIZE + data.getInt(writePosition);
+                offsets.putInt(count * Integer.BYTES, writePosition);
+                count++;
+            }
+
+            // Clear a torn record so the next append starts from a clean slot
+            if (writePosition + RECORD_HEADER_SIZE <= segmentSize) {
+                data.putInt(writePosition, 0);
+            }
+            offsets.force();
+            data.force();
+        }
+
+        private boolean isValidRecord(int position) {
+            if (position + RECORD_HEADER_SIZE > segmentSize) {
+                return false;
+            }
+            int length = data.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > segmentSize) {
+                return false;
+            }
+            byte[] payload = new byte[length];
+            data.get(position + RECORD_HEADER_SIZE, payload);
+            return data.getInt(position + Integer.BYTES) == checksum(payload);
+        }
+
+        private int recordStart(int record) {
+            return record == 0 ? 0 : offsets.getInt((record - 1) * Integer.BYTES);
+        }
+
+        boolean hasRoomFor(int payloadLength) {
+            return count < maxRecords && writePosition + RECORD_HEADER_SIZE + payloadLength <= segmentSize;
+        }
+
+        void appendRecord(byte[] payload) {
+            int position = writePosition;
+            data.put(position + RECORD_HEADER_SIZE, payload);
+            data.putInt(position + Integer.BYTES, checksum(payload));
+            // The length is written last: a record with a zero length is never considered complete
+            data.putInt(position, payload.length);
+            data.force();
+
+            writePosition = position + RECORD_HEADER_SIZE + payload.length;
+            offsets.putInt(count * Integer.BYTES, writePosition);
+            offsets.force();
+            count++;
+        }
+
+        byte[] readRecord(int record) {
+            int position = recordStart(record);
+            int length = data.getInt(position);
+            byte[] payload = new byte[length];
+            data.get(position + RECORD_HEADER_SIZE, payload);
+            return payload;
+        }
+
+        /**
+         * Get a read-only view of a record's payload without copying it
+         */
+        ByteBuffer recordView(int record) {
+            int position = recordStart(record);
+            int length = data.getInt(position);
+            return data.slice(position + RECORD_HEADER_SIZE, length).asReadOnlyBuffer();
+        }
+
+        void close() {
+            try {
+                dataChannel.close();
+                indexChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close ledger segment " + baseIndex, e);
+            }
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
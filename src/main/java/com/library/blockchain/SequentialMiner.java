@@ -0,0 +1,33 @@
+package com.library.blockchain;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Miner that tries nonces one after another on the calling thread
+ */
+public class SequentialMiner implements Miner {
+    private static final int CANCELLATION_CHECK_INTERVAL = 4096;
+
+    @Override
+    public boolean mine(Block block, int difficulty, AtomicBoolean cancelled) {
+        BlockHasher hasher = new BlockHasher(block);
+        byte[] hash = new byte[HashUtils.HASH_LENGTH];
+
+        int nonce = 0;
+        while (true) {
+            hasher.hash(nonce, hash);
+            if (BlockHasher.meetsDifficulty(hash, difficulty)) {
+                block.setNonce(nonce);
+                block.setHash(HashUtils.toHex(hash));
+                return true;
+            }
+            if (nonce == Integer.MAX_VALUE) {
+                throw new IllegalStateException("No nonce meets difficulty " + difficulty + " for block " + block.getIndex());
+            }
+            nonce++;
+            if (nonce % CANCELLATION_CHECK_INTERVAL == 0 && cancelled.get()) {
+                return false;
+            }
+        }
+    }
+}
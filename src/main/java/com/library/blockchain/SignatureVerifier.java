@@ -0,0 +1,123 @@
+package com.library.blockchain;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Verifies transaction signatures in batches on a fork-join pool.
+ *
+ * A batch is split recursively into small slices that are verified on separate workers,
+ * each reusing its own {@link Signature} instance. Every transaction must be signed,
+ * including the mining rewards the chain appends itself.
+ */
+public class SignatureVerifier {
+    private static final int SLICE_SIZE = 8;
+    private static final ThreadLocal<Signature> THREAD_SIGNATURE = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(LedgerKeys.ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ed25519 is not available", e);
+        }
+    });
+
+    private final PublicKey publicKey;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a verifier that runs on its own pool
+     *
+     * @param publicKey The key that transactions must be signed with
+     * @param parallelism The number of verification threads
+     */
+    public SignatureVerifier(PublicKey publicKey, int parallelism) {
+        this(publicKey, new ForkJoinPool(parallelism));
+    }
+
+    /**
+     * Create a verifier that runs on an existing pool
+     *
+     * @param publicKey The key that transactions must be signed with
+     * @param pool The pool to verify on
+     */
+    public SignatureVerifier(PublicKey publicKey, ForkJoinPool pool) {
+        this.publicKey = publicKey;
+        this.pool = pool;
+    }
+
+    /**
+     * Verify the signatures of a batch of transactions
+     *
+     * @param transactions The transactions to verify
+     * @return For each transaction, whether its signature is valid
+     */
+    public boolean[] verify(List<Transaction> transactions) {
+        boolean[] valid = new boolean[transactions.size()];
+        if (transactions.size() <= SLICE_SIZE) {
+            verifySlice(transactions, valid, 0, transactions.size());
+        } else {
+            pool.invoke(new Slice(transactions, valid, 0, transactions.size()));
+        }
+        return valid;
+    }
+
+    /**
+     * Check that every transaction in a batch is correctly signed
+     *
+     * @param transactions The transactions to verify
+     * @return True if all signatures are valid
+     */
+    public boolean verifyAll(List<Transaction> transactions) {
+        for (boolean valid : verify(transactions)) {
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shut down the verification pool
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void verifySlice(List<Transaction> transactions, boolean[] valid, int from, int to) {
+        Signature signature = THREAD_SIGNATURE.get();
+        for (int i = from; i < to; i++) {
+            Transaction transaction = transactions.get(i);
+            valid[i] = transaction.verifySignature(signature, publicKey);
+        }
+    }
+
+    /**
+     * A range of the batch, from inclusive to exclusive
+     */
+    private final class Slice extends RecursiveAction {
+        private final List<Transaction> transactions;
+        private final boolean[] valid;
+        private final int from;
+        private final int to;
+
+        Slice(List<Transaction> transactions, boolean[] valid, int from, int to) {
+            this.transactions = transactions;
+            this.valid = valid;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SLICE_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Slice(transactions, valid, from, middle), new Slice(transactions, valid, middle, to));
+                return;
+            }
+            verifySlice(transactions, valid, from, to);
+        }
+    }
+}
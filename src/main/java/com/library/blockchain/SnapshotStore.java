@@ -0,0 +1,165 @@
+package com.library.blockchain;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Periodic snapshots of the {@link LedgerState} and the {@link LedgerIndex}.
+ *
+ * Every {@code interval} blocks the sealed block commits the root of the state as it stood
+ * before that block, and the state itself is saved here together with the index over the
+ * same blocks. On restart the newest snapshot whose root matches its block header is
+ * loaded, so only the blocks after it are replayed. The index is not committed by the
+ * chain; it is derived data and is rebuilt from the blocks if its file is missing or
+ * unreadable. Each file is written to a temporary file and atomically renamed, the index
+ * before the state; the two newest snapshots are kept.
+ */
+public class SnapshotStore {
+    private static final String PREFIX = "snapshot-";
+    private static final String INDEX_PREFIX = "index-";
+    private static final String SUFFIX = ".bin";
+    private static final int RETAINED_SNAPSHOTS = 2;
+
+    private final Path directory;
+    private final int interval;
+
+    /**
+     * Create a snapshot store
+     *
+     * @param directory The directory holding the snapshot files
+     * @param interval The number of blocks between snapshots
+     */
+    public SnapshotStore(Path directory, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + interval);
+        }
+        this.directory = directory;
+        this.interval = interval;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create snapshot directory " + directory, e);
+        }
+    }
+
+    /**
+     * Check whether a block should commit a snapshot
+     *
+     * @param blockIndex The index of the block being sealed
+     * @return True if the block should carry a state root
+     */
+    public boolean isDue(int blockIndex) {
+        return blockIndex > 0 && blockIndex % interval == 0;
+    }
+
+    /**
+     * Save a snapshot of the state and the index and remove older snapshots
+     *
+     * @param state The state, as it stood before the block that commits its root
+     * @param index The index over the same blocks as the state
+     */
+    public void save(LedgerState state, LedgerIndex index) {
+        Path file = directory.resolve(fileName(state.getBlockCount()));
+        Path indexFile = directory.resolve(indexFileName(state.getBlockCount()));
+        try {
+            try (DataOutputStream out = openTemporary(indexFile)) {
+                index.writeTo(out);
+            }
+            moveTemporary(indexFile);
+            try (DataOutputStream out = openTemporary(file)) {
+                state.writeTo(out);
+            }
+            moveTemporary(file);
+
+            List<Integer> blockIndexes = listSnapshots();
+            for (int i = RETAINED_SNAPSHOTS; i < blockIndexes.size(); i++) {
+                Files.deleteIfExists(directory.resolve(fileName(blockIndexes.get(i))));
+                Files.deleteIfExists(directory.resolve(indexFileName(blockIndexes.get(i))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write ledger snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Load a snapshot
+     *
+     * @param blockIndex The index of the block that commits the snapshot
+     * @return The state as it stood before that block
+     */
+    public LedgerState load(int blockIndex) {
+        Path file = directory.resolve(fileName(blockIndex));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return LedgerState.readFrom(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read ledger snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Load the index saved with a snapshot
+     *
+     * @param blockIndex The index of the block that commits the snapshot
+     * @return The index over the blocks before that block, or null if it is missing or unreadable
+     */
+    public LedgerIndex loadIndex(int blockIndex) {
+        Path file = directory.resolve(indexFileName(blockIndex));
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return LedgerIndex.readFrom(in);
+        } catch (IOException | IllegalStateException e) {
+            System.out.println("Discarding ledger index snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * List the saved snapshots
+     *
+     * @return The indexes of the blocks committing each snapshot, newest first
+     */
+    public List<Integer> listSnapshots() {
+        List<Integer> blockIndexes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                blockIndexes.add(Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list ledger snapshots in " + directory, e);
+        }
+        blockIndexes.sort(Collections.reverseOrder());
+        return blockIndexes;
+    }
+
+    private static DataOutputStream openTemporary(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)));
+    }
+
+    private static void moveTemporary(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String fileName(int blockIndex) {
+        return PREFIX + String.format("%020d", blockIndex) + SUFFIX;
+    }
+
+    private static String indexFileName(int blockIndex) {
+        return INDEX_PREFIX + String.format("%020d", blockIndex) + SUFFIX;
+    }
+}
@@ -1,6 +1,12 @@
 package com.library.blockchain;
 
+import java.math.BigDecimal;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.UUID;
 
 /**
@@ -15,7 +21,14 @@ public class Transaction {
     private String bookTitle;
     private LocalDateTime timestamp;
     private String details;
-    private String signature; // Digital signature for verification
+    private BigDecimal amount; // Money involved in fines and payments, null for other types
+    private String signature; // Base64 Ed25519 signature of the canonical encoding
+
+    /**
+     * Create an empty transaction to be populated when reading the ledger from disk
+     */
+    Transaction() {
+    }
 
     /**
      * Create a new transaction
@@ -39,15 +52,20 @@ public class Transaction {
     }
 
     /**
-     * Generate a digital signature for the transaction
+     * Sign the canonical encoding of the transaction with Ed25519
      *
      * @param privateKey The private key to sign the transaction with
+     * @see TransactionEncoding
      */
-    public void generateSignature(String privateKey) {
-        // In a real implementation, this would use asymmetric cryptography
-        // For simplicity, we'll just concatenate the data with the private key and hash it
-        String data = userId + bookId + timestamp.toString() + type + details;
-        this.signature = data + privateKey;
+    public void sign(PrivateKey privateKey) {
+        try {
+            Signature signer = Signature.getInstance(LedgerKeys.ALGORITHM);
+            signer.initSign(privateKey);
+            signer.update(TransactionEncoding.encodeBody(this));
+            this.signature = Base64.getEncoder().encodeToString(signer.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign transaction " + transactionId, e);
+        }
     }
 
     /**
@@ -56,11 +74,55 @@ public class Transaction {
      * @param publicKey The public key to verify the signature with
      * @return True if the signature is valid
      */
-    public boolean verifySignature(String publicKey) {
-        // In a real implementation, this would use asymmetric cryptography
-        // For simplicity, we'll just check if the signature ends with the public key
-        String data = userId + bookId + timestamp.toString() + type + details;
-        return signature != null && signature.equals(data + publicKey);
+    public boolean verifySignature(PublicKey publicKey) {
+        try {
+            return verifySignature(Signature.getInstance(LedgerKeys.ALGORITHM), publicKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Ed25519 is not available", e);
+        }
+    }
+
+    /**
+     * Verify the digital signature of the transaction with a reusable signature instance
+     *
+     * @param verifier The Ed25519 signature instance to verify with
+     * @param publicKey The public key to verify the signature with
+     * @return True if the signature is valid
+     */
+    boolean verifySignature(Signature verifier, PublicKey publicKey) {
+        if (signature == null) {
+            return false;
+        }
+        try {
+            verifier.initVerify(publicKey);
+            verifier.update(TransactionEncoding.encodeBody(this));
+            return verifier.verify(Base64.getDecoder().decode(signature));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            // A malformed signature is simply invalid
+            return false;
+        }
+    }
+
+    /**
+     * Calculate the hash of the transaction over its canonical binary encoding.
+     * This is the leaf hash used in the Merkle tree of the containing block.
+     *
+     * @return The hash of the transaction
+     */
+    public String calculateHash() {
+        return HashUtils.toHex(calculateHashBytes());
+    }
+
+    /**
+     * Calculate the hash of the transaction as raw bytes
+     *
+     * @return The 32-byte hash of the transaction
+     * @see TransactionEncoding
+     */
+    public byte[] calculateHashBytes() {
+        byte[] hash = new byte[HashUtils.HASH_LENGTH];
+        TransactionEncoding.hash(this, hash);
+        return hash;
     }
 
     @Override
@@ -74,6 +136,7 @@ public class Transaction {
                 ", bookTitle='" + bookTitle + '\'' +
                 ", timestamp=" + timestamp +
                 ", details='" + details + '\'' +
+                ", amount=" + amount +
                 '}';
     }
 
@@ -143,6 +206,14 @@ public class Transaction {
         this.details = details;
     }
 
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
     public String getSignature() {
         return signature;
     }
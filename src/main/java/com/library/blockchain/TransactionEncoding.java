@@ -0,0 +1,181 @@
+package com.library.blockchain;
+
+import java.math.BigDecimal;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Canonical binary encoding of a transaction.
+ *
+ * <pre>
+ * body      := version:u8 transactionId:str type:str userId:opt-i64 username:str
+ *              bookId:opt-i64 bookTitle:str seconds:i64 nanos:i32 details:str
+ *              [amount:decimal]          (version 2 only)
+ * str       := length:i32 utf8-bytes     (length -1 for null)
+ * opt-i64   := present:u8 [value:i64]
+ * decimal   := scale:i32 length:i32 unscaled-value-bytes (big-endian two's complement)
+ * </pre>
+ *
+ * Transactions without an amount keep the version 1 encoding, so the hashes and signatures
+ * of transactions recorded before amounts existed are unchanged. Integers are big-endian
+ * and timestamps are UTC epoch seconds plus nanoseconds. The
+ * body is what gets signed; the transaction hash covers the body followed by the
+ * signature as a {@code str}, so a changed signature also changes the Merkle leaf.
+ * Encoding goes through a per-thread scratch buffer and hashing through the thread's
+ * digest, so hashing a transaction does not allocate beyond the returned hash.
+ */
+public final class TransactionEncoding {
+    public static final byte VERSION = 1;
+    public static final byte AMOUNT_VERSION = 2;
+
+    private static final ThreadLocal<Buffer> SCRATCH = ThreadLocal.withInitial(Buffer::new);
+
+    private TransactionEncoding() {
+    }
+
+    /**
+     * Encode the signed body of a transaction
+     *
+     * @param transaction The transaction
+     * @return A copy of the encoded body
+     */
+    public static byte[] encodeBody(Transaction transaction) {
+        Buffer buffer = SCRATCH.get();
+        buffer.reset();
+        writeBody(buffer, transaction);
+        return Arrays.copyOf(buffer.bytes, buffer.length);
+    }
+
+    /**
+     * Hash the canonical encoding of a transaction, including its signature
+     *
+     * @param transaction The transaction
+     * @param out The buffer receiving the 32-byte hash
+     */
+    public static void hash(Transaction transaction, byte[] out) {
+        Buffer buffer = SCRATCH.get();
+        buffer.reset();
+        writeBody(buffer, transaction);
+        buffer.putString(transaction.getSignature());
+
+        MessageDigest digest = HashUtils.threadDigest();
+        digest.update(buffer.bytes, 0, buffer.length);
+        try {
+            digest.digest(out, 0, HashUtils.HASH_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalArgumentException("Hash buffer is too small", e);
+        }
+    }
+
+    private static void writeBody(Buffer buffer, Transaction transaction) {
+        BigDecimal amount = transaction.getAmount();
+        buffer.putByte(amount != null ? AMOUNT_VERSION : VERSION);
+        buffer.putString(transaction.getTransactionId());
+        buffer.putString(transaction.getType());
+        buffer.putOptionalLong(transaction.getUserId());
+        buffer.putString(transaction.getUsername());
+        buffer.putOptionalLong(transaction.getBookId());
+        buffer.putString(transaction.getBookTitle());
+        LocalDateTime timestamp = transaction.getTimestamp();
+        buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(timestamp.getNano());
+        buffer.putString(transaction.getDetails());
+        if (amount != null) {
+            buffer.putInt(amount.scale());
+            byte[] unscaled = amount.unscaledValue().toByteArray();
+            buffer.putInt(unscaled.length);
+            buffer.putBytes(unscaled);
+        }
+    }
+
+    /**
+     * Growable byte buffer with a hand-written UTF-8 encoder, reused across calls
+     */
+    private static final class Buffer {
+        private byte[] bytes = new byte[512];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        void putByte(int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+        }
+
+        void putInt(int value) {
+            ensureCapacity(4);
+            bytes[length++] = (byte) (value >>> 24);
+            bytes[length++] = (byte) (value >>> 16);
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+
+        void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        void putBytes(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, length, value.length);
+            length += value.length;
+        }
+
+        void putOptionalLong(Long value) {
+            putByte(value != null ? 1 : 0);
+            if (value != null) {
+                putLong(value);
+            }
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            int lengthPosition = length;
+            putInt(0);
+            ensureCapacity(value.length() * 3);
+            int start = length;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogates are replaced, matching String.getBytes(UTF_8)
+                    bytes[length++] = '?';
+                } else {
+                    bytes[length++] = (byte) (0xe0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            int byteLength = length - start;
+            bytes[lengthPosition] = (byte) (byteLength >>> 24);
+            bytes[lengthPosition + 1] = (byte) (byteLength >>> 16);
+            bytes[lengthPosition + 2] = (byte) (byteLength >>> 8);
+            bytes[lengthPosition + 3] = (byte) byteLength;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.blockchain;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker recording that the chain has been verified up to a block
+ */
+public class VerificationCheckpoint {
+    private final int blockIndex;
+    private final String blockHash;
+    private final LocalDateTime verifiedAt;
+
+    /**
+     * Create a verification checkpoint
+     *
+     * @param blockIndex The index of the last verified block
+     * @param blockHash The hash of the last verified block
+     * @param verifiedAt When the verification completed
+     */
+    public VerificationCheckpoint(int blockIndex, String blockHash, LocalDateTime verifiedAt) {
+        this.blockIndex = blockIndex;
+        this.blockHash = blockHash;
+        this.verifiedAt = verifiedAt;
+    }
+
+    // Getters
+
+    public int getBlockIndex() {
+        return blockIndex;
+    }
+
+    public String getBlockHash() {
+        return blockHash;
+    }
+
+    public LocalDateTime getVerifiedAt() {
+        return verifiedAt;
+    }
+}
@@ -1,10 +1,104 @@
 package com.library.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    // This class enables asynchronous processing for email sending
+    // This class enables asynchronous processing for email sending, ledger recording, auditing, embedding and search
+
+    @Value("${blockchain.recording.queue-capacity:10000}")
+    private int ledgerQueueCapacity;
+
+    @Value("${semantic.embeddings.concurrency:4}")
+    private int embeddingConcurrency;
+
+    @Value("${search.hybrid.threads:16}")
+    private int hybridSearchThreads;
+
+    /**
+     * Default executor for @Async methods such as email sending, and for Spring MVC async
+     * request processing such as streamed ledger exports.
+     * Declared explicitly because defining the executors below disables Spring Boot's
+     * auto-configured one; it keeps that bean's name, which MVC looks up, and the
+     * "taskExecutor" name that @Async falls back to.
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor taskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setThreadNamePrefix("task-");
+        return executor;
+    }
+
+    /**
+     * Single worker that records committed loans in the blockchain in publication order.
+     * When the queue is full the publishing thread records the event itself rather than
+     * dropping it. It depends on the blockchain service so that queued events are drained
+     * before the ledger is closed on shutdown.
+     */
+    @Bean(name = "ledgerExecutor")
+    @DependsOn("blockchainService")
+    public ThreadPoolTaskExecutor ledgerExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(ledgerQueueCapacity);
+        executor.setThreadNamePrefix("ledger-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Single worker for the periodic full audit of the blockchain. At most one audit waits
+     * behind a running one; further runs are dropped, as the next one covers them.
+     */
+    @Bean(name = "auditExecutor")
+    public ThreadPoolTaskExecutor auditExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("audit-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        return executor;
+    }
+
+    /**
+     * Workers that send batches of book texts to the embedding API for the embedding
+     * pipeline, one request per worker at a time.
+     */
+    @Bean(name = "embeddingExecutor")
+    public ThreadPoolTaskExecutor embeddingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(embeddingConcurrency);
+        executor.setMaxPoolSize(embeddingConcurrency);
+        executor.setThreadNamePrefix("embedding-");
+        return executor;
+    }
+
+    /**
+     * Workers that run the semantic stage of hybrid searches, whose lexical stage runs on the
+     * request thread. The number of semantic calls in flight is capped by the search service
+     * and the queue is bounded, so a slow embedding service fails stages fast instead of
+     * piling up.
+     */
+    @Bean(name = "searchExecutor")
+    public ThreadPoolTaskExecutor searchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hybridSearchThreads);
+        executor.setMaxPoolSize(hybridSearchThreads);
+        executor.setQueueCapacity(hybridSearchThreads * 4);
+        executor.setThreadNamePrefix("search-");
+        return executor;
+    }
 }
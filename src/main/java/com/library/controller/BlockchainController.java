@@ -1,13 +1,22 @@
 package com.library.controller;
 
 import com.library.blockchain.Block;
+import com.library.blockchain.BlockSummary;
+import com.library.blockchain.Blockchain;
+import com.library.blockchain.LedgerPage;
+import com.library.blockchain.LedgerState;
+import com.library.blockchain.MerkleProof;
 import com.library.blockchain.Transaction;
 import com.library.service.BlockchainService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +26,10 @@ import java.util.Map;
 @RequestMapping("/api/blockchain")
 public class BlockchainController {
 
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private BlockchainService blockchainService;
 
@@ -31,25 +44,69 @@ public class BlockchainController {
     public ResponseEntity<Map<String, Object>> getBlockchainStatus() {
         Map<String, Object> status = new HashMap<>();
         
-        status.put("blockCount", blockchainService.getBlockchain().getChain().size());
-        status.put("pendingTransactions", blockchainService.getPendingTransactions().size());
+        status.put("blockCount", blockchainService.getBlockchain().size());
+        status.put("pendingTransactions", blockchainService.getPendingCount());
         status.put("isValid", blockchainService.verifyBlockchain());
+        status.put("verifiedUpToBlock", blockchainService.getVerificationCheckpoint().getBlockIndex());
+        status.put("firstBlock", blockchainService.getBlockchain().getFirstIndex());
+        status.put("lastSnapshotBlock", blockchainService.getBlockchain().getLastSnapshotIndex());
+        status.put("lastFullAudit", blockchainService.getLastFullAudit());
         status.put("difficulty", blockchainService.getBlockchain().getDifficulty());
         
         return ResponseEntity.ok(status);
     }
 
     /**
-     * Get all blocks in the blockchain
+     * Get a page of block headers, newest first
      * Accessible by admins only
      *
-     * @return List of blocks in the blockchain
+     * @param before The cursor from the previous page; only blocks below this index are listed
+     * @param limit The maximum number of blocks to return
+     * @return List of block summaries without transactions, with the total count and the
+     *         cursor for the next page in headers
      */
     @GetMapping("/blocks")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Block>> getAllBlocks() {
-        List<Block> blocks = blockchainService.getBlockchain().getChain();
-        return ResponseEntity.ok(blocks);
+    public ResponseEntity<List<BlockSummary>> getBlocks(@RequestParam(required = false) Integer before,
+                                                        @RequestParam(defaultValue = "50") int limit) {
+        Blockchain blockchain = blockchainService.getBlockchain();
+        int size = blockchain.size();
+        int cursor = before != null ? Math.max(before, 0) : size;
+        List<BlockSummary> blocks = blockchainService.getBlockSummaries(cursor, clampLimit(limit));
+
+        // Blocks below the first retained one have been archived and cannot be listed
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(size));
+        if (!blocks.isEmpty() && blocks.get(blocks.size() - 1).getIndex() > blockchain.getFirstIndex()) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(blocks.get(blocks.size() - 1).getIndex()));
+        }
+        return response.body(blocks);
+    }
+
+    /**
+     * Stream a range of blocks, with their transactions, as newline-delimited JSON
+     * Accessible by admins only
+     *
+     * @param from The index of the first block, inclusive
+     * @param to The index of the last block, inclusive; defaults to the latest block
+     * @return One JSON block per line
+     */
+    @GetMapping(value = "/blocks/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBlocks(@RequestParam(defaultValue = "0") int from,
+                                                              @RequestParam(required = false) Integer to) {
+        int last = blockchainService.getBlockchain().size() - 1;
+        int first = Math.max(from, blockchainService.getBlockchain().getFirstIndex());
+        int end = to != null ? Math.min(to, last) : last;
+
+        if (first > end) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> blockchainService.exportBlocks(first, end, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("Content-Disposition", "attachment; filename=\"blocks-" + first + "-" + end + ".ndjson\"")
+                .body(body);
     }
 
     /**
@@ -62,13 +119,79 @@ public class BlockchainController {
     @GetMapping("/blocks/{index}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Block> getBlock(@PathVariable int index) {
-        List<Block> chain = blockchainService.getBlockchain().getChain();
+        Blockchain blockchain = blockchainService.getBlockchain();
         
-        if (index < 0 || index >= chain.size()) {
+        if (index < blockchain.getFirstIndex() || index >= blockchain.size()) {
             return ResponseEntity.notFound().build();
         }
         
-        return ResponseEntity.ok(chain.get(index));
+        return ResponseEntity.ok(blockchain.getBlock(index));
+    }
+
+    /**
+     * Get the Merkle inclusion proof for a transaction in a block
+     * Accessible by admins and librarians
+     *
+     * @param index The index of the block
+     * @param transactionId The ID of the transaction
+     * @return The proof and whether it reproduces the block's Merkle root
+     */
+    @GetMapping("/blocks/{index}/transactions/{transactionId}/proof")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<Map<String, Object>> getTransactionProof(@PathVariable int index,
+                                                                   @PathVariable String transactionId) {
+        MerkleProof proof = blockchainService.getMerkleProof(index, transactionId);
+
+        if (proof == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("proof", proof);
+        response.put("isValid", proof.verify());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get the ledger-derived totals for a user
+     * Accessible by the user themselves, librarians, and admins
+     *
+     * @param userId The ID of the user
+     * @return The user's transaction count and outstanding fines
+     */
+    @GetMapping("/state/user/{userId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN') or (hasRole('USER') and #userId == authentication.principal.id)")
+    public ResponseEntity<Map<String, Object>> getUserState(@PathVariable Long userId) {
+        LedgerState state = blockchainService.getLedgerState();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId", userId);
+        response.put("transactionCount", state.getUserTransactionCount(userId));
+        response.put("outstandingFines", state.getOutstandingFine(userId));
+        response.put("asOfBlock", state.getBlockCount() - 1);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get the ledger-derived totals for a book
+     * Accessible by librarians and admins
+     *
+     * @param bookId The ID of the book
+     * @return The book's transaction count
+     */
+    @GetMapping("/state/book/{bookId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<Map<String, Object>> getBookState(@PathVariable Long bookId) {
+        LedgerState state = blockchainService.getLedgerState();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("bookId", bookId);
+        response.put("transactionCount", state.getBookTransactionCount(bookId));
+        response.put("asOfBlock", state.getBlockCount() - 1);
+
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -85,45 +208,74 @@ public class BlockchainController {
     }
 
     /**
-     * Get all transactions for a specific user
+     * Get a page of the transactions for a specific user
      * Accessible by the user themselves, librarians, and admins
      *
      * @param userId The ID of the user
-     * @return List of transactions involving the user
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return List of transactions involving the user, with the total count in a header
      */
     @GetMapping("/transactions/user/{userId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN') or (hasRole('USER') and #userId == authentication.principal.id)")
-    public ResponseEntity<List<Transaction>> getUserTransactions(@PathVariable Long userId) {
-        List<Transaction> userTransactions = blockchainService.getUserTransactions(userId);
-        return ResponseEntity.ok(userTransactions);
+    public ResponseEntity<List<Transaction>> getUserTransactions(@PathVariable Long userId,
+                                                                 @RequestParam(defaultValue = "0") int offset,
+                                                                 @RequestParam(defaultValue = "100") int limit) {
+        return toResponse(blockchainService.getUserTransactions(userId, clampOffset(offset), clampLimit(limit)));
     }
 
     /**
-     * Get all transactions for a specific book
+     * Get a page of the transactions for a specific book
      * Accessible by librarians and admins
      *
      * @param bookId The ID of the book
-     * @return List of transactions involving the book
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return List of transactions involving the book, with the total count in a header
      */
     @GetMapping("/transactions/book/{bookId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
-    public ResponseEntity<List<Transaction>> getBookTransactions(@PathVariable Long bookId) {
-        List<Transaction> bookTransactions = blockchainService.getBookTransactions(bookId);
-        return ResponseEntity.ok(bookTransactions);
+    public ResponseEntity<List<Transaction>> getBookTransactions(@PathVariable Long bookId,
+                                                                 @RequestParam(defaultValue = "0") int offset,
+                                                                 @RequestParam(defaultValue = "100") int limit) {
+        return toResponse(blockchainService.getBookTransactions(bookId, clampOffset(offset), clampLimit(limit)));
     }
 
     /**
-     * Get all transactions of a specific type
+     * Get a page of the transactions of a specific type
      * Accessible by admins only
      *
      * @param type The type of transaction
-     * @return List of transactions of the specified type
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return List of transactions of the specified type, with the total count in a header
      */
     @GetMapping("/transactions/type/{type}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Transaction>> getTransactionsByType(@PathVariable String type) {
-        List<Transaction> typeTransactions = blockchainService.getTransactionsByType(type);
-        return ResponseEntity.ok(typeTransactions);
+    public ResponseEntity<List<Transaction>> getTransactionsByType(@PathVariable String type,
+                                                                   @RequestParam(defaultValue = "0") int offset,
+                                                                   @RequestParam(defaultValue = "100") int limit) {
+        return toResponse(blockchainService.getTransactionsByType(type, clampOffset(offset), clampLimit(limit)));
+    }
+
+    /**
+     * Get a page of the transactions created within a time range
+     * Accessible by admins only
+     *
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, inclusive
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return List of transactions in timestamp order, with the total count in a header
+     */
+    @GetMapping("/transactions/range")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Transaction>> getTransactionsBetween(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "100") int limit) {
+        return toResponse(blockchainService.getTransactionsBetween(from, to, clampOffset(offset), clampLimit(limit)));
     }
 
     /**
@@ -139,13 +291,13 @@ public class BlockchainController {
         
         Map<String, String> response = new HashMap<>();
         response.put("message", "Mining completed successfully");
-        response.put("blockCount", String.valueOf(blockchainService.getBlockchain().getChain().size()));
+        response.put("blockCount", String.valueOf(blockchainService.getBlockchain().size()));
         
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Verify the integrity of the blockchain
+     * Verify the integrity of the whole blockchain from the genesis block
      * Accessible by admins only
      *
      * @return Verification result
@@ -153,11 +305,25 @@ public class BlockchainController {
     @GetMapping("/verify")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Boolean>> verifyBlockchain() {
-        boolean isValid = blockchainService.verifyBlockchain();
+        boolean isValid = blockchainService.auditBlockchain();
         
         Map<String, Boolean> response = new HashMap<>();
         response.put("isValid", isValid);
         
         return ResponseEntity.ok(response);
     }
+
+    private ResponseEntity<List<Transaction>> toResponse(LedgerPage<Transaction> page) {
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotal()))
+                .body(page.getItems());
+    }
+
+    private static int clampOffset(int offset) {
+        return Math.max(offset, 0);
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
 }
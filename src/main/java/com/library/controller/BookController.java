@@ -4,8 +4,10 @@ import com.library.model.Book;
 import com.library.payload.request.BookRequest;
 import com.library.payload.response.MessageResponse;
 import com.library.repository.BookRepository;
+import com.library.service.CatalogEvent;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +21,9 @@ public class BookController {
     @Autowired
     BookRepository bookRepository;
 
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
     @GetMapping("/public/all")
     public ResponseEntity<List<Book>> getAllBooks() {
         List<Book> books = bookRepository.findAll();
@@ -85,7 +90,8 @@ public class BookController {
         book.setLanguage(bookRequest.getLanguage());
         book.setPages(bookRequest.getPages());
 
-        bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogEvent.added(savedBook));
         return ResponseEntity.ok(new MessageResponse("Book added successfully!"));
     }
 
@@ -131,7 +137,8 @@ public class BookController {
                     book.setLanguage(bookRequest.getLanguage());
                     book.setPages(bookRequest.getPages());
 
-                    bookRepository.save(book);
+                    Book updatedBook = bookRepository.save(book);
+                    eventPublisher.publishEvent(CatalogEvent.updated(updatedBook));
                     return ResponseEntity.ok(new MessageResponse("Book updated successfully!"));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -143,6 +150,7 @@ public class BookController {
         return bookRepository.findById(id)
                 .map(book -> {
                     bookRepository.delete(book);
+                    eventPublisher.publishEvent(CatalogEvent.deleted(book));
                     return ResponseEntity.ok(new MessageResponse("Book deleted successfully!"));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -2,52 +2,60 @@ package com.library.controller;
 
 import com.library.model.Book;
 import com.library.payload.response.BookResponse;
+import com.library.payload.response.FacetedSearchResponse;
 import com.library.repository.BookRepository;
+import com.library.search.FacetIndex;
+import com.library.service.CatalogFacetService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books/search")
 public class BookSearchController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private CatalogFacetService catalogFacetService;
+
     /**
-     * Advanced search endpoint that allows searching by multiple criteria
+     * Advanced search endpoint that allows searching by multiple criteria.
+     * Text criteria match whole words or word prefixes; results are ranked by relevance to q if given.
      */
     @GetMapping
     public ResponseEntity<List<BookResponse>> searchBooks(
+            @RequestParam(required = false) String q,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String isbn,
             @RequestParam(required = false) String publisher) {
         
-        // Use the searchBooks method from the repository
-        List<Book> books = bookRepository.searchBooks(title, author, category);
+        // Use the full-text search from the repository
+        List<Book> books = bookRepository.advancedSearch(q, title, author, category, publisher, null, null, null);
         
-        // Additional filtering for ISBN and publisher if provided
+        // Additional filtering for ISBN if provided
         if (isbn != null && !isbn.isEmpty()) {
             books = books.stream()
                     .filter(book -> book.getIsbn() != null && book.getIsbn().contains(isbn))
                     .collect(Collectors.toList());
         }
         
-        if (publisher != null && !publisher.isEmpty()) {
-            books = books.stream()
-                    .filter(book -> book.getPublisher() != null && 
-                            book.getPublisher().toLowerCase().contains(publisher.toLowerCase()))
-                    .collect(Collectors.toList());
-        }
-        
         // Convert to BookResponse objects
         List<BookResponse> bookResponses = books.stream()
                 .map(BookResponse::new)
@@ -56,15 +64,52 @@ public class BookSearchController {
         return ResponseEntity.ok(bookResponses);
     }
     
+    /**
+     * Faceted search: the books matching the selected category, language, publisher and
+     * decade values, with the counts of each facet's values for those filters
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedSearchResponse> facetedSearch(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> language,
+            @RequestParam(required = false) List<String> publisher,
+            @RequestParam(required = false) List<String> decade,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        Map<String, Set<String>> filters = new HashMap<>();
+        addFilter(filters, CatalogFacetService.CATEGORY, category);
+        addFilter(filters, CatalogFacetService.LANGUAGE, language);
+        addFilter(filters, CatalogFacetService.PUBLISHER, publisher);
+        addFilter(filters, CatalogFacetService.DECADE, decade);
+        
+        return ResponseEntity.ok(catalogFacetService.search(filters, Math.max(page, 0), clampSize(size)));
+    }
+
+    private static int clampSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+    
+    private static void addFilter(Map<String, Set<String>> filters, String facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, new LinkedHashSet<>(values));
+        }
+    }
+    
+    /**
+     * Get every value of a facet (category, language, publisher or decade) with its number of books
+     */
+    @GetMapping("/facets/{facet}")
+    public ResponseEntity<List<FacetIndex.FacetCount>> getFacetValues(@PathVariable String facet) {
+        return ResponseEntity.ok(catalogFacetService.getFacetValues(facet));
+    }
+    
     /**
      * Get books by category
      */
     @GetMapping("/category")
     public ResponseEntity<List<BookResponse>> getBooksByCategory(@RequestParam String category) {
-        List<Book> books = bookRepository.findAll().stream()
-                .filter(book -> book.getCategory() != null && 
-                        book.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        List<Book> books = catalogFacetService.findByFacet(CatalogFacetService.CATEGORY, category);
         
         List<BookResponse> bookResponses = books.stream()
                 .map(BookResponse::new)
@@ -78,11 +123,8 @@ public class BookSearchController {
      */
     @GetMapping("/categories")
     public ResponseEntity<List<String>> getAllCategories() {
-        List<String> categories = bookRepository.findAll().stream()
-                .map(Book::getCategory)
-                .filter(category -> category != null && !category.isEmpty())
-                .distinct()
-                .sorted()
+        List<String> categories = catalogFacetService.getFacetValues(CatalogFacetService.CATEGORY).stream()
+                .map(FacetIndex.FacetCount::getValue)
                 .collect(Collectors.toList());
         
         return ResponseEntity.ok(categories);
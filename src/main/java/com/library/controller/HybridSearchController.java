@@ -0,0 +1,36 @@
+package com.library.controller;
+
+import com.library.payload.response.HybridSearchResponse;
+import com.library.service.HybridSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/search/hybrid")
+public class HybridSearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private HybridSearchService hybridSearchService;
+
+    /**
+     * Search for books with the lexical and semantic indexes together, fusing their rankings
+     *
+     * @param query The natural language query
+     * @param limit The maximum number of results to return (default: 10)
+     * @return The ranked books, the stages that answered and whether any stage was left out
+     */
+    @GetMapping
+    public ResponseEntity<HybridSearchResponse> search(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(hybridSearchService.search(query, clampLimit(limit)));
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+}
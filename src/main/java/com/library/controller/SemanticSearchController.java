@@ -5,9 +5,11 @@ import com.library.payload.response.BookResponse;
 import com.library.service.SemanticSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -15,6 +17,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/search/semantic")
 public class SemanticSearchController {
 
+    private static final int MAX_LIMIT = 100;
+
     @Autowired
     private SemanticSearchService semanticSearchService;
 
@@ -30,7 +34,7 @@ public class SemanticSearchController {
             @RequestParam String query,
             @RequestParam(defaultValue = "10") int limit) {
         
-        List<Book> books = semanticSearchService.semanticSearch(query, limit);
+        List<Book> books = semanticSearchService.semanticSearch(query, clampLimit(limit));
         
         List<BookResponse> bookResponses = books.stream()
                 .map(BookResponse::new)
@@ -51,7 +55,7 @@ public class SemanticSearchController {
             @PathVariable Long bookId,
             @RequestParam(defaultValue = "5") int limit) {
         
-        List<Book> similarBooks = semanticSearchService.findSimilarBooks(bookId, limit);
+        List<Book> similarBooks = semanticSearchService.findSimilarBooks(bookId, clampLimit(limit));
         
         List<BookResponse> bookResponses = similarBooks.stream()
                 .map(BookResponse::new)
@@ -59,4 +63,19 @@ public class SemanticSearchController {
         
         return ResponseEntity.ok(bookResponses);
     }
+
+    /**
+     * Get the query embedding cache statistics
+     *
+     * @return Hit rate, request counters and embedding call latencies
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getQueryCacheStats() {
+        return ResponseEntity.ok(semanticSearchService.getQueryCacheStats());
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
 }
@@ -0,0 +1,66 @@
+package com.library.payload.response;
+
+import com.library.search.FacetIndex;
+
+import java.util.List;
+import java.util.Map;
+
+public class FacetedSearchResponse {
+    private long total;
+    private int page;
+    private int size;
+    private List<BookResponse> books;
+    private Map<String, List<FacetIndex.FacetCount>> facets;
+
+    public FacetedSearchResponse() {
+    }
+
+    public FacetedSearchResponse(long total, int page, int size, List<BookResponse> books,
+                                 Map<String, List<FacetIndex.FacetCount>> facets) {
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.books = books;
+        this.facets = facets;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public List<BookResponse> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookResponse> books) {
+        this.books = books;
+    }
+
+    public Map<String, List<FacetIndex.FacetCount>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, List<FacetIndex.FacetCount>> facets) {
+        this.facets = facets;
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.payload.response;
+
+import java.util.List;
+
+public class HybridSearchResponse {
+    private List<BookResponse> books;
+    private List<String> stages;
+    private boolean degraded;
+
+    public HybridSearchResponse() {
+    }
+
+    public HybridSearchResponse(List<BookResponse> books, List<String> stages, boolean degraded) {
+        this.books = books;
+        this.stages = stages;
+        this.degraded = degraded;
+    }
+
+    public List<BookResponse> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookResponse> books) {
+        this.books = books;
+    }
+
+    public List<String> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<String> stages) {
+        this.stages = stages;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+}
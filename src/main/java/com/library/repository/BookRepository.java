@@ -10,7 +10,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     Optional<Book> findByIsbn(String isbn);
 
     List<Book> findByTitleContainingIgnoreCase(String title);
@@ -43,32 +43,6 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT DISTINCT b.publisher FROM Book b WHERE b.publisher IS NOT NULL")
     List<String> findAllPublishers();
 
-    @Query("SELECT b FROM Book b WHERE " +
-           "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
-           "(:category IS NULL OR LOWER(b.category) LIKE LOWER(CONCAT('%', :category, '%')))")
-    List<Book> searchBooks(
-            @Param("title") String title,
-            @Param("author") String author,
-            @Param("category") String category);
-
-    @Query("SELECT b FROM Book b WHERE " +
-           "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
-           "(:category IS NULL OR LOWER(b.category) LIKE LOWER(CONCAT('%', :category, '%'))) AND " +
-           "(:publisher IS NULL OR LOWER(b.publisher) LIKE LOWER(CONCAT('%', :publisher, '%'))) AND " +
-           "(:language IS NULL OR LOWER(b.language) LIKE LOWER(CONCAT('%', :language, '%'))) AND " +
-           "(:minYear IS NULL OR FUNCTION('YEAR', b.publicationDate) >= :minYear) AND " +
-           "(:maxYear IS NULL OR FUNCTION('YEAR', b.publicationDate) <= :maxYear)")
-    List<Book> advancedSearch(
-            @Param("title") String title,
-            @Param("author") String author,
-            @Param("category") String category,
-            @Param("publisher") String publisher,
-            @Param("language") String language,
-            @Param("minYear") Integer minYear,
-            @Param("maxYear") Integer maxYear);
-
     @Query("SELECT b FROM Book b ORDER BY b.id DESC")
     List<Book> findRecentlyAdded(org.springframework.data.domain.Pageable pageable);
 
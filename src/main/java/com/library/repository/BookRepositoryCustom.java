@@ -0,0 +1,38 @@
+package com.library.repository;
+
+import com.library.model.Book;
+
+import java.util.List;
+
+/**
+ * Catalog searches whose SQL depends on which criteria are given, so that MySQL can use
+ * the FULLTEXT and year indexes instead of scanning the books table
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Search books by words of their title, author and category
+     *
+     * @param title Words of the title, or null
+     * @param author Words of the author, or null
+     * @param category Words of the category, or null
+     * @return The matching books
+     */
+    List<Book> searchBooks(String title, String author, String category);
+
+    /**
+     * Search books by any combination of criteria
+     *
+     * @param keywords Words of the title, author or description, ranking results by relevance, or null
+     * @param title Words of the title, or null
+     * @param author Words of the author, or null
+     * @param category Words of the category, or null
+     * @param publisher Words of the publisher, or null
+     * @param language The start of the language, or null
+     * @param minYear The earliest publication year, or null
+     * @param maxYear The latest publication year, or null
+     * @return The matching books
+     */
+    List<Book> advancedSearch(String keywords, String title, String author, String category, String publisher,
+                              String language, Integer minYear, Integer maxYear);
+}
@@ -0,0 +1,130 @@
+package com.library.repository;
+
+import com.library.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Native catalog searches against the FULLTEXT indexes on the books table.
+ *
+ * Only the predicates for the given criteria are added to the query, since an optional
+ * "(:x IS NULL OR MATCH ...)" condition keeps MySQL from using the FULLTEXT index. Each
+ * text criterion becomes a boolean-mode match requiring every word as a prefix. InnoDB
+ * does not index stopwords or words shorter than its minimum token size, so such words
+ * are left out of the match and the whole criterion is rechecked with LIKE on the rows the
+ * index returned; a criterion made only of such words falls back to LIKE alone.
+ */
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    // innodb_ft_min_token_size
+    private static final int MIN_TOKEN_LENGTH = 3;
+
+    // The default InnoDB FULLTEXT stopword list
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from", "how",
+            "i", "in", "is", "it", "la", "of", "on", "or", "that", "the", "this", "to", "was", "what",
+            "when", "where", "who", "will", "with", "und", "www");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Book> searchBooks(String title, String author, String category) {
+        return advancedSearch(null, title, author, category, null, null, null, null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Book> advancedSearch(String keywords, String title, String author, String category, String publisher,
+                                     String language, Integer minYear, Integer maxYear) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM books WHERE 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        boolean ranked = addTextCriterion(sql, parameters, "keywords", "title, author, description", keywords);
+        addTextCriterion(sql, parameters, "title", "title", title);
+        addTextCriterion(sql, parameters, "author", "author", author);
+        addTextCriterion(sql, parameters, "category", "category", category);
+        addTextCriterion(sql, parameters, "publisher", "publisher", publisher);
+
+        if (!isBlank(language)) {
+            // The column's case-insensitive collation makes LOWER() unnecessary and a prefix can use the index
+            sql.append(" AND language LIKE CONCAT(:language, '%')");
+            parameters.put("language", language.trim());
+        }
+        if (minYear != null) {
+            sql.append(" AND publication_year >= :minYear");
+            parameters.put("minYear", minYear);
+        }
+        if (maxYear != null) {
+            sql.append(" AND publication_year <= :maxYear");
+            parameters.put("maxYear", maxYear);
+        }
+
+        if (ranked) {
+            sql.append(" ORDER BY MATCH(title, author, description) AGAINST (:keywordsMatch IN BOOLEAN MODE) DESC");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Book.class);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    /**
+     * Add the predicates for a text criterion
+     *
+     * @return True if a FULLTEXT match was added
+     */
+    private static boolean addTextCriterion(StringBuilder sql, Map<String, Object> parameters, String name,
+                                            String columns, String value) {
+        if (isBlank(value)) {
+            return false;
+        }
+
+        List<String> indexedWords = new ArrayList<>();
+        boolean unindexedWords = false;
+        for (String word : value.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (word.length() < MIN_TOKEN_LENGTH || STOPWORDS.contains(word)) {
+                unindexedWords = true;
+            } else {
+                indexedWords.add(word);
+            }
+        }
+
+        boolean matched = !indexedWords.isEmpty();
+        if (matched) {
+            StringBuilder match = new StringBuilder();
+            for (String word : indexedWords) {
+                match.append(match.length() == 0 ? "" : " ").append('+').append(word).append('*');
+            }
+            sql.append(" AND MATCH(").append(columns).append(") AGAINST (:").append(name).append("Match IN BOOLEAN MODE)");
+            parameters.put(name + "Match", match.toString());
+        }
+        if (unindexedWords) {
+            // Keywords span several columns, so only the single-column criteria can be rechecked
+            if (columns.indexOf(',') < 0) {
+                sql.append(" AND ").append(columns).append(" LIKE CONCAT('%', :").append(name).append(", '%')");
+                parameters.put(name, value.trim());
+            } else if (!matched) {
+                sql.append(" AND CONCAT_WS(' ', ").append(columns).append(") LIKE CONCAT('%', :").append(name)
+                        .append(", '%')");
+                parameters.put(name, value.trim());
+            }
+        }
+        return matched;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
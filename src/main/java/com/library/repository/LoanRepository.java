@@ -37,9 +37,22 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     @Query("SELECT l FROM Loan l WHERE l.status = :status ORDER BY l.loanDate DESC")
     List<Loan> findByStatus(@Param("status") String status);
 
+    // Keyset pagination in ID order up to an inclusive upper ID, fetching the user and book in the same query
+    @Query("SELECT l FROM Loan l JOIN FETCH l.user JOIN FETCH l.book WHERE l.id > :afterId AND l.id <= :lastId ORDER BY l.id ASC")
+    List<Loan> findChunkBetween(@Param("afterId") Long afterId, @Param("lastId") Long lastId,
+                                org.springframework.data.domain.Pageable pageable);
+
+    // Highest loan ID, or null if there are no loans
+    @Query("SELECT MAX(l.id) FROM Loan l")
+    Long findMaxId();
+
     // Count loans for a specific book
     Long countByBook(Book book);
 
+    // Count loans per book, as [bookId, count] rows
+    @Query("SELECT l.book.id, COUNT(l) FROM Loan l GROUP BY l.book.id")
+    List<Object[]> countLoansGroupedByBook();
+
     // Count loans for a specific book after a certain date
     Long countByBookAndLoanDateAfter(Book book, Date date);
 
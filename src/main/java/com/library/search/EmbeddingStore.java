@@ -0,0 +1,340 @@
+package com.library.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent store of embedding vectors in a memory-mapped file of fixed-size rows.
+ *
+ * Each row holds {@code [state][crc32][sequence][id][content hash][dimension floats]}, so the
+ * vectors live in the page cache rather than on the heap and only the ID-to-row map is kept
+ * in memory. A vector is stored with the SHA-256 hash of the text it was computed from and
+ * is only returned for the same hash, so changed content is re-embedded without explicit
+ * invalidation. Rows are written before they are marked valid and replaced rows are freed
+ * afterwards; on open, rows failing their checksum are treated as free and of two rows for
+ * the same ID the later one wins. Reads take a read lock and copy the vector out, writes
+ * take a write lock.
+ */
+public class EmbeddingStore implements Closeable {
+    private static final int MAGIC = 0x454D4253; // "EMBS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 64;
+    private static final int ROW_HEADER_SIZE = 24;
+    private static final int HASH_LENGTH = 32;
+    private static final int ROWS_PER_CHUNK = 1024;
+
+    private static final int FREE = 0;
+    private static final int VALID = 1;
+
+    private final Path file;
+    private final int dimension;
+    private final int stride;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int rowCount;
+    private long sequence;
+
+    /**
+     * Open (or create) an embedding store.
+     * A file written for another dimension is discarded, since its vectors no longer apply.
+     *
+     * @param file The store file
+     * @param dimension The length of the vectors
+     */
+    public EmbeddingStore(Path file, int dimension) {
+        this.file = file;
+        this.dimension = dimension;
+        this.stride = ROW_HEADER_SIZE + Long.BYTES + HASH_LENGTH + dimension * Float.BYTES;
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            if (Files.exists(file) && !hasHeader(file, dimension)) {
+                System.out.println("Discarding embedding store " + file + " written for another format or dimension");
+                Files.delete(file);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                writeHeader();
+            }
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open embedding store " + file, e);
+        }
+    }
+
+    private static boolean hasHeader(Path file, int dimension) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(12);
+            if (in.read(header, 0) < 12) {
+                return false;
+            }
+            header.flip();
+            return header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION && header.getInt() == dimension;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(dimension);
+        header.rewind();
+        channel.write(header, 0);
+    }
+
+    /**
+     * Map the existing rows and rebuild the ID-to-row map
+     */
+    private void load() throws IOException {
+        long rowsInFile = (channel.size() - FILE_HEADER_SIZE) / stride;
+        Map<Long, Long> sequences = new HashMap<>();
+        for (int row = 0; row < rowsInFile; row++) {
+            ByteBuffer chunk = chunkFor(row);
+            int offset = offsetInChunk(row);
+            if (chunk.getInt(offset) != VALID || chunk.getInt(offset + 4) != checksum(chunk, offset)) {
+                freeRows.add(row);
+                continue;
+            }
+            long rowSequence = chunk.getLong(offset + 8);
+            long id = chunk.getLong(offset + ROW_HEADER_SIZE);
+            Integer previous = rows.get(id);
+            if (previous != null && sequences.get(id) > rowSequence) {
+                freeRow(row);
+                continue;
+            }
+            if (previous != null) {
+                freeRow(previous);
+            }
+            rows.put(id, row);
+            sequences.put(id, rowSequence);
+            sequence = Math.max(sequence, rowSequence);
+        }
+        rowCount = (int) rowsInFile;
+    }
+
+    /**
+     * Compute the content hash that versions an embedding
+     *
+     * @param text The text the embedding is computed from
+     * @return The SHA-256 hash of the text
+     */
+    public static byte[] contentHash(String text) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Get the vector stored for an ID if it was computed from the same content
+     *
+     * @param id The ID of the vector
+     * @param contentHash The hash of the content the vector must match
+     * @return A copy of the vector, or null if there is none for this content
+     */
+    public float[] get(long id, byte[] contentHash) {
+        lock.readLock().lock();
+        try {
+            Integer row = rows.get(id);
+            if (row == null) {
+                return null;
+            }
+            if (!hashMatches(row, contentHash)) {
+                return null;
+            }
+            float[] vector = new float[dimension];
+            int vectorOffset = offsetInChunk(row) + ROW_HEADER_SIZE + Long.BYTES + HASH_LENGTH;
+            chunks.get(row / ROWS_PER_CHUNK).slice(vectorOffset, dimension * Float.BYTES).asFloatBuffer().get(vector);
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether a vector computed from the given content is stored for an ID
+     *
+     * @param id The ID of the vector
+     * @param contentHash The hash of the content
+     * @return True if the stored vector matches the content
+     */
+    public boolean contains(long id, byte[] contentHash) {
+        lock.readLock().lock();
+        try {
+            Integer row = rows.get(id);
+            return row != null && hashMatches(row, contentHash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Store the vector for an ID, replacing any previous one
+     *
+     * @param id The ID of the vector
+     * @param contentHash The hash of the content the vector was computed from
+     * @param vector The vector
+     */
+    public void put(long id, byte[] contentHash, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + " but got " + vector.length);
+        }
+        if (contentHash.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Expected a " + HASH_LENGTH + "-byte content hash");
+        }
+
+        lock.writeLock().lock();
+        try {
+            int row = freeRows.isEmpty() ? rowCount++ : freeRows.poll();
+            ByteBuffer chunk = chunkFor(row);
+            int offset = offsetInChunk(row);
+
+            // Write the row, then mark it valid, then free the row it replaces
+            chunk.putInt(offset, FREE);
+            chunk.putLong(offset + 8, ++sequence);
+            chunk.putLong(offset + ROW_HEADER_SIZE, id);
+            chunk.put(offset + ROW_HEADER_SIZE + Long.BYTES, contentHash);
+            chunk.slice(offset + ROW_HEADER_SIZE + Long.BYTES + HASH_LENGTH, dimension * Float.BYTES)
+                    .asFloatBuffer().put(vector);
+            chunk.putInt(offset + 4, checksum(chunk, offset));
+            chunk.putInt(offset, VALID);
+
+            Integer previous = rows.put(id, row);
+            if (previous != null) {
+                freeRow(previous);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to extend embedding store " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the vector for an ID
+     *
+     * @param id The ID of the vector
+     * @return True if a vector was stored
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(id);
+            if (row == null) {
+                return false;
+            }
+            freeRow(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every vector
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            for (int row : rows.values()) {
+                freeRow(row);
+            }
+            rows.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of stored vectors
+     *
+     * @return The number of vectors
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean hashMatches(int row, byte[] contentHash) {
+        ByteBuffer chunk = chunks.get(row / ROWS_PER_CHUNK);
+        int hashOffset = offsetInChunk(row) + ROW_HEADER_SIZE + Long.BYTES;
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            if (chunk.get(hashOffset + i) != contentHash[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void freeRow(int row) {
+        chunks.get(row / ROWS_PER_CHUNK).putInt(offsetInChunk(row), FREE);
+        freeRows.add(row);
+    }
+
+    private int checksum(ByteBuffer chunk, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(chunk.slice(offset + 8, stride - 8));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Get the mapped chunk holding a row, mapping (and so extending the file) as needed
+     */
+    private MappedByteBuffer chunkFor(int row) throws IOException {
+        int index = row / ROWS_PER_CHUNK;
+        while (chunks.size() <= index) {
+            long position = FILE_HEADER_SIZE + (long) chunks.size() * ROWS_PER_CHUNK * stride;
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) ROWS_PER_CHUNK * stride));
+        }
+        return chunks.get(index);
+    }
+
+    private int offsetInChunk(int row) {
+        return (row % ROWS_PER_CHUNK) * stride;
+    }
+
+    /**
+     * Flush the mapped rows to disk and close the file
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close embedding store " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
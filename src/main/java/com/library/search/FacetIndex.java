@@ -0,0 +1,383 @@
+package com.library.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of single-valued facets (such as category or language) over documents
+ * identified by a long ID.
+ *
+ * Each document gets a dense ordinal, reused after it is removed. Every facet value keeps a
+ * bitset of the ordinals that have it, and every facet keeps a column of the value each
+ * ordinal has. A query intersects the bitsets of the selected values (any selected value
+ * of a facet, all filtered facets), then counts facet values by walking the matching
+ * ordinals through the columns, so counting costs one array read per match and facet.
+ * The counts for a filtered facet ignore that facet's own filter, so they show how many
+ * documents each alternative value would give. Values are matched case-insensitively and
+ * reported with the spelling they were first indexed with. Queries take a read lock and
+ * updates a write lock.
+ */
+public class FacetIndex {
+
+    private final String[] fields;
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
+    private final List<Map<String, Value>> valuesByKey = new ArrayList<>();
+    private final List<List<Value>> valuesByOrdinal = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private long[] ids = new long[64];
+    private int[][] columns;
+    private int ordinalCount;
+
+    /**
+     * Create an index
+     *
+     * @param fields The names of the facets
+     */
+    public FacetIndex(String... fields) {
+        this.fields = fields.clone();
+        this.columns = new int[fields.length][ids.length];
+        for (int f = 0; f < fields.length; f++) {
+            fieldIndexes.put(fields[f], f);
+            valuesByKey.add(new HashMap<>());
+            valuesByOrdinal.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Add a document or replace its facet values
+     *
+     * @param id The document ID
+     * @param values The value of each facet; missing, null or blank values leave the facet unset
+     */
+    public void put(long id, Map<String, String> values) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinals.get(id);
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                clearValues(ordinal);
+            } else {
+                ordinal = allocate(id);
+            }
+            for (int f = 0; f < fields.length; f++) {
+                String label = values.get(fields[f]);
+                if (label == null || label.trim().isEmpty()) {
+                    continue;
+                }
+                String key = key(label);
+                Value value = valuesByKey.get(f).get(key);
+                if (value == null) {
+                    value = new Value(label.trim(), valuesByOrdinal.get(f).size());
+                    valuesByKey.get(f).put(key, value);
+                    valuesByOrdinal.get(f).add(value);
+                }
+                value.documents.set(ordinal);
+                value.count++;
+                columns[f][ordinal] = value.ordinal;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document
+     *
+     * @param id The document ID
+     * @return True if the document was indexed
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return false;
+            }
+            clearValues(ordinal);
+            live.clear(ordinal);
+            freeOrdinals.push(ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the documents matching the filters, with facet counts
+     *
+     * @param filters The selected values of each filtered facet; a document matches if it has
+     *                one of the selected values of every filtered facet
+     * @param offset The number of matching IDs to skip
+     * @param limit The maximum number of matching IDs to return
+     * @param maxValues The maximum number of values to report per facet, 0 to skip counting
+     * @return The matching IDs in ascending order and the facet counts
+     */
+    public Result query(Map<String, ? extends Set<String>> filters, int offset, int limit, int maxValues) {
+        lock.readLock().lock();
+        try {
+            // The documents matching each filtered facet
+            BitSet[] fieldMatches = new BitSet[fields.length];
+            for (Map.Entry<String, ? extends Set<String>> filter : filters.entrySet()) {
+                Integer f = fieldIndexes.get(filter.getKey());
+                if (f == null) {
+                    throw new IllegalArgumentException("Unknown facet: " + filter.getKey());
+                }
+                if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                    continue;
+                }
+                BitSet matches = new BitSet();
+                for (String label : filter.getValue()) {
+                    Value value = label == null ? null : valuesByKey.get(f).get(key(label));
+                    if (value != null) {
+                        matches.or(value.documents);
+                    }
+                }
+                fieldMatches[f] = matches;
+            }
+
+            BitSet matching = intersect(fieldMatches, -1);
+            int total = matching.cardinality();
+            List<Long> page = page(matching, total, Math.max(offset, 0), limit);
+
+            Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+            for (int f = 0; f < fields.length && maxValues > 0; f++) {
+                // A facet's own filter is left out of its counts
+                BitSet counted = fieldMatches[f] == null ? matching : intersect(fieldMatches, f);
+                facets.put(fields[f], count(f, counted, maxValues));
+            }
+            return new Result(total, page, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get every value of a facet with the number of documents that have it
+     *
+     * @param field The facet
+     * @return The values in alphabetical order
+     */
+    public List<FacetCount> values(String field) {
+        lock.readLock().lock();
+        try {
+            Integer f = fieldIndexes.get(field);
+            if (f == null) {
+                throw new IllegalArgumentException("Unknown facet: " + field);
+            }
+            List<FacetCount> values = new ArrayList<>();
+            for (Value value : valuesByOrdinal.get(f)) {
+                if (value.count > 0) {
+                    values.add(new FacetCount(value.label, value.count));
+                }
+            }
+            values.sort(Comparator.comparing(FacetCount::getValue, String.CASE_INSENSITIVE_ORDER));
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of indexed documents
+     *
+     * @return The number of documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int allocate(long id) {
+        int ordinal;
+        if (!freeOrdinals.isEmpty()) {
+            ordinal = freeOrdinals.pop();
+        } else {
+            ordinal = ordinalCount++;
+            if (ordinal == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                for (int f = 0; f < fields.length; f++) {
+                    columns[f] = Arrays.copyOf(columns[f], ids.length);
+                }
+            }
+        }
+        ids[ordinal] = id;
+        for (int f = 0; f < fields.length; f++) {
+            columns[f][ordinal] = -1;
+        }
+        ordinals.put(id, ordinal);
+        live.set(ordinal);
+        return ordinal;
+    }
+
+    private void clearValues(int ordinal) {
+        for (int f = 0; f < fields.length; f++) {
+            int valueOrdinal = columns[f][ordinal];
+            if (valueOrdinal >= 0) {
+                Value value = valuesByOrdinal.get(f).get(valueOrdinal);
+                value.documents.clear(ordinal);
+                value.count--;
+                columns[f][ordinal] = -1;
+            }
+        }
+    }
+
+    /**
+     * Get a page of the matching IDs in ascending order. Ordinals are not in ID order, so
+     * the first offset + limit IDs are selected with a bounded max-heap rather than sorting
+     * every match, unless the page reaches the last match.
+     */
+    private List<Long> page(BitSet matching, int total, int offset, int limit) {
+        int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        if (offset >= total) {
+            return new ArrayList<>();
+        }
+        if (wanted >= total) {
+            long[] matchingIds = new long[total];
+            int n = 0;
+            for (int ordinal = matching.nextSetBit(0); ordinal >= 0; ordinal = matching.nextSetBit(ordinal + 1)) {
+                matchingIds[n++] = ids[ordinal];
+            }
+            Arrays.sort(matchingIds);
+            List<Long> page = new ArrayList<>(total - offset);
+            for (int i = offset; i < total; i++) {
+                page.add(matchingIds[i]);
+            }
+            return page;
+        }
+
+        PriorityQueue<Long> smallest = new PriorityQueue<>(Comparator.reverseOrder());
+        for (int ordinal = matching.nextSetBit(0); ordinal >= 0; ordinal = matching.nextSetBit(ordinal + 1)) {
+            long id = ids[ordinal];
+            if (smallest.size() < wanted) {
+                smallest.add(id);
+            } else if (id < smallest.peek()) {
+                smallest.poll();
+                smallest.add(id);
+            }
+        }
+        List<Long> page = new ArrayList<>(smallest);
+        Collections.sort(page);
+        return page.size() > offset ? new ArrayList<>(page.subList(offset, page.size())) : new ArrayList<>();
+    }
+
+    /**
+     * Intersect the live documents with the filtered facets' matches, skipping one facet
+     */
+    private BitSet intersect(BitSet[] fieldMatches, int skipped) {
+        BitSet result = (BitSet) live.clone();
+        for (int f = 0; f < fieldMatches.length; f++) {
+            if (f != skipped && fieldMatches[f] != null) {
+                result.and(fieldMatches[f]);
+            }
+        }
+        return result;
+    }
+
+    private List<FacetCount> count(int f, BitSet documents, int maxValues) {
+        int[] column = columns[f];
+        int[] counts = new int[valuesByOrdinal.get(f).size()];
+        for (int ordinal = documents.nextSetBit(0); ordinal >= 0; ordinal = documents.nextSetBit(ordinal + 1)) {
+            int valueOrdinal = column[ordinal];
+            if (valueOrdinal >= 0) {
+                counts[valueOrdinal]++;
+            }
+        }
+
+        List<FacetCount> result = new ArrayList<>();
+        for (int v = 0; v < counts.length; v++) {
+            if (counts[v] > 0) {
+                result.add(new FacetCount(valuesByOrdinal.get(f).get(v).label, counts[v]));
+            }
+        }
+        result.sort(Comparator.comparingInt(FacetCount::getCount).reversed()
+                .thenComparing(FacetCount::getValue, String.CASE_INSENSITIVE_ORDER));
+        return result.size() > maxValues ? new ArrayList<>(result.subList(0, maxValues)) : result;
+    }
+
+    private static String key(String label) {
+        return label.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Value {
+        private final String label;
+        private final int ordinal;
+        private final BitSet documents = new BitSet();
+        private int count;
+
+        private Value(String label, int ordinal) {
+            this.label = label;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /**
+     * A facet value with its number of documents
+     */
+    public static class FacetCount {
+        private final String value;
+        private final int count;
+
+        public FacetCount(String value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * The result of a facet query
+     */
+    public static class Result {
+        private final int total;
+        private final List<Long> ids;
+        private final Map<String, List<FacetCount>> facets;
+
+        private Result(int total, List<Long> ids, Map<String, List<FacetCount>> facets) {
+            this.total = total;
+            this.ids = Collections.unmodifiableList(ids);
+            this.facets = Collections.unmodifiableMap(facets);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public Map<String, List<FacetCount>> getFacets() {
+            return facets;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A trigram index over a vocabulary of terms, finding the terms within a small edit
+ * distance of a misspelled one.
+ *
+ * Every term is padded with two boundary characters on each side and split into
+ * overlapping three-character grams, and each gram lists the terms containing it. One edit
+ * changes at most three grams, so a term within distance d of the query shares at least
+ * (grams of either term) - 3d grams with it. A lookup counts shared grams over the
+ * postings of the query's grams, keeps the terms reaching that bound, and only runs those
+ * through a {@link LevenshteinAutomaton}. When the bound drops to zero (very short or
+ * repetitive terms) the terms of compatible length are checked instead. The vocabulary is
+ * reference counted per document, so a term disappears with the last document using it.
+ * Lookups take a read lock and updates a write lock.
+ */
+public class FuzzyTermIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final char START = '\u0002';
+    private static final char END = '\u0003';
+
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Map<String, Set<String>> gramPostings = new HashMap<>();
+    private final Map<Integer, Set<String>> termsByLength = new HashMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add a document's terms, replacing any previous version with the same ID
+     *
+     * @param documentId The ID of the document
+     * @param documentTerms The document's terms
+     */
+    public void put(long documentId, Iterable<String> documentTerms) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String term : documentTerms) {
+            if (!term.isEmpty()) {
+                distinct.add(term);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(documentId);
+            for (String term : distinct) {
+                addTerm(term);
+            }
+            this.documentTerms.put(documentId, distinct);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document's terms
+     *
+     * @param documentId The ID of the document
+     * @return True if the document was indexed
+     */
+    public boolean remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            return removeDocument(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether a term is in the vocabulary
+     *
+     * @param term The term
+     * @return True if some document has the term
+     */
+    public boolean contains(String term) {
+        lock.readLock().lock();
+        try {
+            return terms.containsKey(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the vocabulary terms within an edit distance of a term, excluding the term itself
+     *
+     * @param term The (possibly misspelled) term
+     * @param maxDistance The maximum Levenshtein distance
+     * @param limit The maximum number of terms to return
+     * @return The closest terms, nearest first and then by the number of documents using them
+     */
+    public List<Match> expand(String term, int maxDistance, int limit) {
+        if (maxDistance <= 0 || limit <= 0 || term.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> queryGrams = grams(term);
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, maxDistance);
+        List<Match> matches = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            Set<String> candidates;
+            if (queryGrams.size() - GRAM_LENGTH * maxDistance > 0) {
+                // Count the grams each term shares with the query
+                Map<String, Integer> shared = new HashMap<>();
+                for (String gram : queryGrams) {
+                    Set<String> postings = gramPostings.get(gram);
+                    if (postings != null) {
+                        for (String candidate : postings) {
+                            shared.merge(candidate, 1, Integer::sum);
+                        }
+                    }
+                }
+                candidates = new HashSet<>();
+                for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                    int required = Math.max(queryGrams.size(), terms.get(entry.getKey()).gramCount)
+                            - GRAM_LENGTH * maxDistance;
+                    if (entry.getValue() >= required) {
+                        candidates.add(entry.getKey());
+                    }
+                }
+            } else {
+                // The gram bound cannot exclude anything, so check every term of compatible length
+                candidates = new HashSet<>();
+                for (int length = term.length() - maxDistance; length <= term.length() + maxDistance; length++) {
+                    candidates.addAll(termsByLength.getOrDefault(length, Set.of()));
+                }
+            }
+
+            for (String candidate : candidates) {
+                if (candidate.equals(term)) {
+                    continue;
+                }
+                int distance = automaton.distance(candidate);
+                if (distance >= 0) {
+                    matches.add(new Match(candidate, distance, terms.get(candidate).documentCount));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingInt(Match::getDistance)
+                .thenComparing(Comparator.comparingInt(Match::getDocumentCount).reversed())
+                .thenComparing(Match::getTerm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Get the number of distinct terms
+     *
+     * @return The vocabulary size
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addTerm(String term) {
+        Term entry = terms.get(term);
+        if (entry != null) {
+            entry.documentCount++;
+            return;
+        }
+        Set<String> termGrams = grams(term);
+        entry = new Term(termGrams.size());
+        entry.documentCount = 1;
+        terms.put(term, entry);
+        for (String gram : termGrams) {
+            gramPostings.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+        }
+        termsByLength.computeIfAbsent(term.length(), l -> new HashSet<>()).add(term);
+    }
+
+    private boolean removeDocument(long documentId) {
+        Set<String> previous = documentTerms.remove(documentId);
+        if (previous == null) {
+            return false;
+        }
+        for (String term : previous) {
+            Term entry = terms.get(term);
+            if (--entry.documentCount > 0) {
+                continue;
+            }
+            terms.remove(term);
+            for (String gram : grams(term)) {
+                Set<String> postings = gramPostings.get(gram);
+                postings.remove(term);
+                if (postings.isEmpty()) {
+                    gramPostings.remove(gram);
+                }
+            }
+            Set<String> sameLength = termsByLength.get(term.length());
+            sameLength.remove(term);
+            if (sameLength.isEmpty()) {
+                termsByLength.remove(term.length());
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(String term) {
+        String padded = "" + START + START + term + END + END;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static final class Term {
+        private final int gramCount;
+        private int documentCount;
+
+        private Term(int gramCount) {
+            this.gramCount = gramCount;
+        }
+    }
+
+    /**
+     * A vocabulary term close to a looked-up term
+     */
+    public static class Match {
+        private final String term;
+        private final int distance;
+        private final int documentCount;
+
+        public Match(String term, int distance, int documentCount) {
+            this.term = term;
+            this.distance = distance;
+            this.documentCount = documentCount;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        public int getDocumentCount() {
+            return documentCount;
+        }
+    }
+}
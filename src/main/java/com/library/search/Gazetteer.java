@@ -0,0 +1,219 @@
+package com.library.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A dictionary of typed phrases (such as author names or categories) compiled into an
+ * Aho-Corasick automaton, finding every phrase occurring in a text in one pass over it.
+ *
+ * Phrases and texts are normalized to lower-case words separated by single spaces and
+ * padded with a space on each side, so a phrase only matches whole words. The automaton
+ * is a trie of the phrases with failure links to the longest proper suffix that is also a
+ * trie prefix, and output links to the nearest such suffix ending a phrase; scanning
+ * follows at most one transition or failure link per step, so the pass is linear in the
+ * text plus the number of matches. A built gazetteer is immutable and can be shared
+ * between threads; changes to the dictionary are made by building a new one.
+ */
+public class Gazetteer {
+
+    private final char[][] labels;
+    private final int[][] children;
+    private final int[] failure;
+    private final int[] outputLink;
+    private final String[] phrases;
+    private final List<List<String>> phraseTypes;
+    private final int[] phraseAt;
+
+    private Gazetteer(Node root, List<String> phrases, List<List<String>> phraseTypes) {
+        // Number the trie nodes breadth first, which is also the order failure links need
+        List<Node> nodes = new ArrayList<>();
+        Deque<Node> queue = new ArrayDeque<>();
+        root.id = 0;
+        nodes.add(root);
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Node child : node.children.values()) {
+                child.id = nodes.size();
+                nodes.add(child);
+                queue.add(child);
+            }
+        }
+
+        int count = nodes.size();
+        this.labels = new char[count][];
+        this.children = new int[count][];
+        this.failure = new int[count];
+        this.outputLink = new int[count];
+        this.phraseAt = new int[count];
+        this.phrases = phrases.toArray(new String[0]);
+        this.phraseTypes = phraseTypes;
+
+        for (Node node : nodes) {
+            char[] nodeLabels = new char[node.children.size()];
+            int i = 0;
+            for (char c : node.children.keySet()) {
+                nodeLabels[i++] = c;
+            }
+            Arrays.sort(nodeLabels);
+            int[] nodeChildren = new int[nodeLabels.length];
+            for (i = 0; i < nodeLabels.length; i++) {
+                nodeChildren[i] = node.children.get(nodeLabels[i]).id;
+            }
+            labels[node.id] = nodeLabels;
+            children[node.id] = nodeChildren;
+            phraseAt[node.id] = node.phrase;
+        }
+
+        // Failure and output links, parents before children
+        outputLink[0] = -1;
+        for (Node node : nodes) {
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                int child = entry.getValue().id;
+                int fallback = node.id == 0 ? 0 : next(failure[node.id], entry.getKey());
+                failure[child] = fallback;
+                outputLink[child] = phraseAt[fallback] >= 0 ? fallback : outputLink[fallback];
+            }
+        }
+    }
+
+    /**
+     * Find every dictionary phrase in a text
+     *
+     * @param text The text
+     * @return The matches in order of their end in the normalized text
+     */
+    public List<Match> find(String text) {
+        String normalized = " " + normalize(text) + " ";
+        List<Match> matches = new ArrayList<>();
+        int state = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            state = next(state, normalized.charAt(i));
+            for (int node = phraseAt[state] >= 0 ? state : outputLink[state]; node > 0; node = outputLink[node]) {
+                int phrase = phraseAt[node];
+                for (String type : phraseTypes.get(phrase)) {
+                    matches.add(new Match(phrases[phrase], type));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Get the number of distinct phrases
+     *
+     * @return The dictionary size
+     */
+    public int size() {
+        return phrases.length;
+    }
+
+    /**
+     * Follow the transition on a character, falling back along failure links
+     */
+    private int next(int state, char c) {
+        while (true) {
+            int i = Arrays.binarySearch(labels[state], c);
+            if (i >= 0) {
+                return children[state][i];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = failure[state];
+        }
+    }
+
+    /**
+     * Normalize text to lower-case words separated by single spaces
+     *
+     * @param text The text, possibly null
+     * @return The normalized text, empty if there are no words
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    /**
+     * Collects typed phrases and compiles them into a gazetteer
+     */
+    public static class Builder {
+        private final Map<String, Set<String>> entries = new LinkedHashMap<>();
+
+        /**
+         * Add a phrase; the same phrase may be added with several types
+         *
+         * @param phrase The phrase, normalized when added
+         * @param type The type of entity the phrase names
+         * @return This builder
+         */
+        public Builder add(String phrase, String type) {
+            String normalized = normalize(phrase);
+            if (!normalized.isEmpty()) {
+                entries.computeIfAbsent(normalized, p -> new LinkedHashSet<>()).add(type);
+            }
+            return this;
+        }
+
+        /**
+         * Compile the phrases added so far
+         *
+         * @return The gazetteer
+         */
+        public Gazetteer build() {
+            Node root = new Node();
+            List<String> phrases = new ArrayList<>(entries.size());
+            List<List<String>> phraseTypes = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+                Node node = root;
+                for (char c : (" " + entry.getKey() + " ").toCharArray()) {
+                    node = node.children.computeIfAbsent(c, k -> new Node());
+                }
+                node.phrase = phrases.size();
+                phrases.add(entry.getKey());
+                phraseTypes.add(Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+            return new Gazetteer(root, phrases, phraseTypes);
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new LinkedHashMap<>();
+        private int phrase = -1;
+        private int id;
+    }
+
+    /**
+     * A phrase found in a text
+     */
+    public static class Match {
+        private final String phrase;
+        private final String type;
+
+        public Match(String phrase, String type) {
+            this.phrase = phrase;
+            this.type = type;
+        }
+
+        public String getPhrase() {
+            return phrase;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Approximate nearest-neighbour index over vectors using a Hierarchical Navigable Small
+ * World graph, ranked by cosine similarity.
+ *
+ * Vectors are normalized on insert so similarity is a dot product. Each vector is linked
+ * to its closest neighbours on layer 0 and, with exponentially decreasing probability, on
+ * higher layers; a search descends greedily through the sparse upper layers and then
+ * explores a bounded candidate list on layer 0, visiting a small fraction of the vectors.
+ * Every node also records which nodes link to it, since pruning a neighbour list leaves
+ * links one-directional. A removed vector is unlinked from every node linking to it and
+ * from its own neighbours, which are reconnected among themselves, so no live node keeps
+ * a removed one (and its vectors) reachable. {@link #exactSearch} scans every vector
+ * instead, optionally scoring an int8 copy of each vector first and re-ranking the best
+ * candidates with the float vectors.
+ * Searches take a read lock and updates a write lock.
+ */
+public class HnswIndex {
+
+    private final int dimension;
+    private final int maxLinks;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final boolean quantized;
+    private final Random random;
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node entryPoint;
+
+    /**
+     * Create an empty index
+     *
+     * @param dimension The length of the vectors
+     * @param maxLinks The number of neighbours kept per node on upper layers (twice this on layer 0)
+     * @param efConstruction The candidate list size used when inserting
+     * @param efSearch The minimum candidate list size used when searching
+     * @param quantized Whether to keep an int8 copy of each vector for exact scans
+     * @param seed The seed for choosing node levels
+     */
+    public HnswIndex(int dimension, int maxLinks, int efConstruction, int efSearch, boolean quantized, long seed) {
+        this.dimension = dimension;
+        this.maxLinks = maxLinks;
+        this.maxLinksLayer0 = 2 * maxLinks;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1 / Math.log(maxLinks);
+        this.quantized = quantized;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Add a vector, replacing any previous vector with the same ID
+     *
+     * @param id The ID of the vector
+     * @param vector The vector; it is copied
+     * @return False if the vector has no direction (all zeros) and was not indexed
+     */
+    public boolean put(long id, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + " but got " + vector.length);
+        }
+        float[] normalized = VectorMath.normalize(vector);
+        byte[] codes = null;
+        float scale = 0.0f;
+        if (normalized != null && quantized) {
+            codes = new byte[dimension];
+            scale = VectorMath.quantize(normalized, codes);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeNode(id);
+            if (normalized == null) {
+                return false;
+            }
+            insert(new Node(id, normalized, codes, scale, randomLevel()));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a vector
+     *
+     * @param id The ID of the vector
+     * @return True if the vector was indexed
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeNode(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every vector
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nodes.clear();
+            entryPoint = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the vectors most similar to a query vector
+     *
+     * @param query The query vector
+     * @param k The maximum number of results
+     * @return The nearest vectors, most similar first
+     */
+    public List<Neighbor> search(float[] query, int k) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + " but got " + query.length);
+        }
+        float[] normalized = VectorMath.normalize(query);
+        if (normalized == null || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint == null) {
+                return Collections.emptyList();
+            }
+            Node entry = entryPoint;
+            for (int layer = entry.level(); layer > 0; layer--) {
+                entry = greedyClosest(normalized, entry, layer);
+            }
+            List<Scored> candidates = searchLayer(normalized, List.of(entry), Math.max(efSearch, k), 0);
+            List<Neighbor> results = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && results.size() < k; i++) {
+                results.add(new Neighbor(candidates.get(i).node.id, candidates.get(i).similarity));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the vectors most similar to a query vector by scanning all of them.
+     * With quantization enabled, the int8 copies are scored first and only the best
+     * {@code k * rerankFactor} candidates are re-scored with the float vectors.
+     *
+     * @param query The query vector
+     * @param k The maximum number of results
+     * @param rerankFactor How many candidates per result the int8 pass keeps
+     * @return The nearest vectors, most similar first
+     */
+    public List<Neighbor> exactSearch(float[] query, int k, int rerankFactor) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + " but got " + query.length);
+        }
+        float[] normalized = VectorMath.normalize(query);
+        if (normalized == null || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Collection<Node> candidates = nodes.values();
+            if (quantized) {
+                byte[] queryCodes = new byte[dimension];
+                float queryScale = VectorMath.quantize(normalized, queryCodes);
+                int shortlistSize = (int) Math.min((long) k * Math.max(1, rerankFactor), nodes.size());
+                List<Scored> approximate = top(candidates, shortlistSize,
+                        node -> VectorMath.dot(queryCodes, node.codes) * queryScale * node.scale);
+                List<Node> shortlist = new ArrayList<>(approximate.size());
+                for (Scored scored : approximate) {
+                    shortlist.add(scored.node);
+                }
+                candidates = shortlist;
+            }
+            List<Scored> ranked = top(candidates, k, node -> VectorMath.dot(normalized, node.vector));
+            List<Neighbor> results = new ArrayList<>(ranked.size());
+            for (Scored scored : ranked) {
+                results.add(new Neighbor(scored.node.id, scored.similarity));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keep the highest-scoring nodes in a bounded min-heap
+     *
+     * @return The nodes and their scores, highest score first
+     */
+    private static List<Scored> top(Collection<Node> nodes, int limit, ToDoubleFunction<Node> scorer) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Scored> top = new PriorityQueue<>(Scored.LEAST_SIMILAR_FIRST);
+        for (Node node : nodes) {
+            double score = scorer.applyAsDouble(node);
+            if (top.size() < limit) {
+                top.add(new Scored(node, score));
+            } else if (score > top.peek().similarity) {
+                top.poll();
+                top.add(new Scored(node, score));
+            }
+        }
+        List<Scored> sorted = new ArrayList<>(top);
+        sorted.sort(Scored.MOST_SIMILAR_FIRST);
+        return sorted;
+    }
+
+    /**
+     * Get the normalized vector stored for an ID
+     *
+     * @param id The ID of the vector
+     * @return A copy of the normalized vector, or null if it is not indexed
+     */
+    public float[] getVector(long id) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(id);
+            return node != null ? node.vector.clone() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether an ID is indexed
+     *
+     * @param id The ID of the vector
+     * @return True if the ID is indexed
+     */
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return nodes.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of indexed vectors
+     *
+     * @return The number of vectors
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int randomLevel() {
+        return (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private void insert(Node node) {
+        nodes.put(node.id, node);
+        if (entryPoint == null) {
+            entryPoint = node;
+            return;
+        }
+
+        Node entry = entryPoint;
+        for (int layer = entry.level(); layer > node.level(); layer--) {
+            entry = greedyClosest(node.vector, entry, layer);
+        }
+
+        List<Node> entries = List.of(entry);
+        for (int layer = Math.min(node.level(), entryPoint.level()); layer >= 0; layer--) {
+            List<Scored> candidates = searchLayer(node.vector, entries, efConstruction, layer);
+            int limit = layer == 0 ? maxLinksLayer0 : maxLinks;
+            List<Node> neighbors = selectNeighbors(candidates, maxLinks);
+            for (Node neighbor : neighbors) {
+                link(node, neighbor, layer);
+                link(neighbor, node, layer);
+                if (neighbor.links[layer].size() > limit) {
+                    relink(neighbor, layer, selectNeighbors(score(neighbor.vector, neighbor.links[layer]), limit));
+                }
+            }
+            entries = new ArrayList<>(candidates.size());
+            for (Scored candidate : candidates) {
+                entries.add(candidate.node);
+            }
+        }
+
+        if (node.level() > entryPoint.level()) {
+            entryPoint = node;
+        }
+    }
+
+    private boolean removeNode(long id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        node.removed = true;
+
+        // Reconnect the nodes linking to it and its own neighbours using the links they
+        // lose and the ones they keep, which also drops every link to the removed node
+        for (int layer = 0; layer <= node.level(); layer++) {
+            int limit = layer == 0 ? maxLinksLayer0 : maxLinks;
+            Set<Node> affected = new HashSet<>(node.inbound[layer]);
+            affected.addAll(node.links[layer]);
+            affected.remove(node);
+            for (Node neighbor : affected) {
+                Set<Node> candidates = new HashSet<>(neighbor.links[layer]);
+                candidates.addAll(node.links[layer]);
+                candidates.remove(neighbor);
+                relink(neighbor, layer, selectNeighbors(score(neighbor.vector, candidates), limit));
+            }
+            relink(node, layer, new ArrayList<>());
+        }
+
+        if (entryPoint == node) {
+            entryPoint = null;
+            for (Node remaining : nodes.values()) {
+                if (entryPoint == null || remaining.level() > entryPoint.level()) {
+                    entryPoint = remaining;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a link from one node to another
+     */
+    private static void link(Node from, Node to, int layer) {
+        from.links[layer].add(to);
+        to.inbound[layer].add(from);
+    }
+
+    /**
+     * Replace a node's links on one layer, keeping the inbound sets of the nodes it
+     * stops or starts linking to in step
+     */
+    private static void relink(Node node, int layer, List<Node> links) {
+        for (Node previous : node.links[layer]) {
+            previous.inbound[layer].remove(node);
+        }
+        node.links[layer] = links;
+        for (Node next : links) {
+            next.inbound[layer].add(node);
+        }
+    }
+
+    /**
+     * Walk towards the query on one layer, moving to a closer neighbour while there is one
+     */
+    private Node greedyClosest(float[] query, Node start, int layer) {
+        Node current = start;
+        double best = VectorMath.dot(query, current.vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (Node neighbor : current.links[layer]) {
+                if (neighbor.removed) {
+                    continue;
+                }
+                double similarity = VectorMath.dot(query, neighbor.vector);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer keeping the ef most similar nodes found
+     *
+     * @return The nodes found, most similar first
+     */
+    private List<Scored> searchLayer(float[] query, List<Node> entries, int ef, int layer) {
+        Set<Node> visited = new HashSet<>();
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(Scored.MOST_SIMILAR_FIRST);
+        PriorityQueue<Scored> found = new PriorityQueue<>(Scored.LEAST_SIMILAR_FIRST);
+        for (Node entry : entries) {
+            if (!entry.removed && visited.add(entry)) {
+                Scored scored = new Scored(entry, VectorMath.dot(query, entry.vector));
+                candidates.add(scored);
+                found.add(scored);
+            }
+        }
+        while (found.size() > ef) {
+            found.poll();
+        }
+
+        while (!candidates.isEmpty()) {
+            Scored closest = candidates.poll();
+            if (found.size() >= ef && closest.similarity < found.peek().similarity) {
+                break;
+            }
+            for (Node neighbor : closest.node.links[layer]) {
+                if (neighbor.removed || !visited.add(neighbor)) {
+                    continue;
+                }
+                double similarity = VectorMath.dot(query, neighbor.vector);
+                if (found.size() < ef || similarity > found.peek().similarity) {
+                    Scored scored = new Scored(neighbor, similarity);
+                    candidates.add(scored);
+                    found.add(scored);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+
+        List<Scored> results = new ArrayList<>(found);
+        results.sort(Scored.MOST_SIMILAR_FIRST);
+        return results;
+    }
+
+    /**
+     * Choose up to a limit of neighbours, preferring candidates that are closer to the node
+     * than to any neighbour already chosen so links point in diverse directions, then
+     * filling any remaining slots with the closest of the rest
+     *
+     * @param candidates The candidates scored against the node, most similar first
+     */
+    private List<Node> selectNeighbors(List<Scored> candidates, int limit) {
+        List<Node> selected = new ArrayList<>(limit);
+        List<Node> skipped = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            boolean diverse = true;
+            for (Node chosen : selected) {
+                if (VectorMath.dot(candidate.node.vector, chosen.vector) > candidate.similarity) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node);
+            } else {
+                skipped.add(candidate.node);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < limit; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    private List<Scored> score(float[] vector, Iterable<Node> candidates) {
+        List<Scored> scored = new ArrayList<>();
+        for (Node candidate : candidates) {
+            if (!candidate.removed) {
+                scored.add(new Scored(candidate, VectorMath.dot(vector, candidate.vector)));
+            }
+        }
+        scored.sort(Scored.MOST_SIMILAR_FIRST);
+        return scored;
+    }
+
+    /**
+     * A search result: an ID and its cosine similarity to the query
+     */
+    public static final class Neighbor {
+        private final long id;
+        private final double similarity;
+
+        Neighbor(long id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    private static final class Node {
+        private final long id;
+        private final float[] vector;
+        private final byte[] codes;
+        private final float scale;
+        private final List<Node>[] links;
+        private final Set<Node>[] inbound;
+        private boolean removed;
+
+        @SuppressWarnings("unchecked")
+        Node(long id, float[] vector, byte[] codes, float scale, int level) {
+            this.id = id;
+            this.vector = vector;
+            this.codes = codes;
+            this.scale = scale;
+            this.links = new List[level + 1];
+            this.inbound = new Set[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                links[layer] = new ArrayList<>();
+                inbound[layer] = new HashSet<>();
+            }
+        }
+
+        int level() {
+            return links.length - 1;
+        }
+    }
+
+    private static final class Scored {
+        static final Comparator<Scored> MOST_SIMILAR_FIRST = (a, b) -> Double.compare(b.similarity, a.similarity);
+        static final Comparator<Scored> LEAST_SIMILAR_FIRST = (a, b) -> Double.compare(a.similarity, b.similarity);
+
+        private final Node node;
+        private final double similarity;
+
+        Scored(Node node, double similarity) {
+            this.node = node;
+            this.similarity = similarity;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.library.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index over documents with several text fields, ranked with BM25.
+ *
+ * Each term maps to the documents containing it and the term's frequency in every field,
+ * so a query only visits the postings of its own terms. Documents are scored per field
+ * with BM25, using that field's document frequency and average length, and the field
+ * scores are combined with caller-supplied weights. Documents can be replaced or removed
+ * at any time; queries take a read lock and updates a write lock.
+ */
+public class InvertedIndex {
+
+    /** Term frequency saturation */
+    private static final double K1 = 1.2;
+
+    /** Strength of the field length normalization */
+    private static final double B = 0.75;
+
+    private final int fieldCount;
+    private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private final long[] totalFieldLengths;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Create an empty index
+     *
+     * @param fieldCount The number of fields in each document
+     */
+    public InvertedIndex(int fieldCount) {
+        this.fieldCount = fieldCount;
+        this.totalFieldLengths = new long[fieldCount];
+    }
+
+    /**
+     * Add a document, replacing any previous version with the same ID
+     *
+     * @param documentId The ID of the document
+     * @param fieldTerms The analyzed terms of each field, in field order
+     */
+    public void put(long documentId, List<List<String>> fieldTerms) {
+        if (fieldTerms.size() != fieldCount) {
+            throw new IllegalArgumentException("Expected " + fieldCount + " fields but got " + fieldTerms.size());
+        }
+
+        // Count the terms outside the lock
+        Map<String, int[]> frequencies = new HashMap<>();
+        int[] fieldLengths = new int[fieldCount];
+        for (int field = 0; field < fieldCount; field++) {
+            for (String term : fieldTerms.get(field)) {
+                frequencies.computeIfAbsent(term, t -> new int[fieldCount])[field]++;
+            }
+            fieldLengths[field] = fieldTerms.get(field).size();
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(documentId);
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(documentId, entry.getValue());
+            }
+            for (int field = 0; field < fieldCount; field++) {
+                totalFieldLengths[field] += fieldLengths[field];
+            }
+            documents.put(documentId, new IndexedDocument(fieldLengths, frequencies.keySet().toArray(new String[0])));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document
+     *
+     * @param documentId The ID of the document
+     * @return True if the document was indexed
+     */
+    public boolean remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            return removeDocument(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeDocument(long documentId) {
+        IndexedDocument document = documents.remove(documentId);
+        if (document == null) {
+            return false;
+        }
+        for (String term : document.terms) {
+            Map<Long, int[]> termPostings = postings.get(term);
+            termPostings.remove(documentId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        for (int field = 0; field < fieldCount; field++) {
+            totalFieldLengths[field] -= document.fieldLengths[field];
+        }
+        return true;
+    }
+
+    /**
+     * Score the documents containing any of the query terms.
+     * A term repeated in the query counts once per occurrence.
+     *
+     * @param queryTerms The analyzed query terms
+     * @param fieldWeights The weight of each field's BM25 score
+     * @return The score of every matching document, keyed by document ID
+     */
+    public Map<Long, Double> score(List<String> queryTerms, double[] fieldWeights) {
+        double[] termBoosts = new double[queryTerms.size()];
+        Arrays.fill(termBoosts, 1.0);
+        return score(queryTerms, termBoosts, fieldWeights);
+    }
+
+    /**
+     * Score the documents containing any of the query terms, scaling each term's contribution
+     *
+     * @param queryTerms The analyzed query terms
+     * @param termBoosts The factor applied to each query term's score, in term order
+     * @param fieldWeights The weight of each field's BM25 score
+     * @return The score of every matching document, keyed by document ID
+     */
+    public Map<Long, Double> score(List<String> queryTerms, double[] termBoosts, double[] fieldWeights) {
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return scores;
+            }
+            double[] averageLengths = new double[fieldCount];
+            for (int field = 0; field < fieldCount; field++) {
+                averageLengths[field] = Math.max(1.0, (double) totalFieldLengths[field] / documentCount);
+            }
+
+            for (int t = 0; t < queryTerms.size(); t++) {
+                Map<Long, int[]> termPostings = postings.get(queryTerms.get(t));
+                if (termPostings == null) {
+                    continue;
+                }
+
+                // Inverse document frequency of the term in each field
+                int[] documentFrequencies = new int[fieldCount];
+                for (int[] frequencies : termPostings.values()) {
+                    for (int field = 0; field < fieldCount; field++) {
+                        if (frequencies[field] > 0) {
+                            documentFrequencies[field]++;
+                        }
+                    }
+                }
+                double[] idf = new double[fieldCount];
+                for (int field = 0; field < fieldCount; field++) {
+                    double df = documentFrequencies[field];
+                    idf[field] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                }
+
+                for (Map.Entry<Long, int[]> posting : termPostings.entrySet()) {
+                    int[] frequencies = posting.getValue();
+                    int[] lengths = documents.get(posting.getKey()).fieldLengths;
+                    double score = 0.0;
+                    for (int field = 0; field < fieldCount; field++) {
+                        int tf = frequencies[field];
+                        if (tf == 0) {
+                            continue;
+                        }
+                        double norm = K1 * (1 - B + B * lengths[field] / averageLengths[field]);
+                        score += fieldWeights[field] * idf[field] * tf * (K1 + 1) / (tf + norm);
+                    }
+                    scores.merge(posting.getKey(), termBoosts[t] * score, Double::sum);
+                }
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether any document contains a term
+     *
+     * @param term The analyzed term
+     * @return True if the term has postings
+     */
+    public boolean contains(String term) {
+        lock.readLock().lock();
+        try {
+            return postings.containsKey(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of indexed documents
+     *
+     * @return The number of documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of distinct terms
+     *
+     * @return The number of terms
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The field lengths of an indexed document and the terms it was posted under
+     */
+    private static final class IndexedDocument {
+        private final int[] fieldLengths;
+        private final String[] terms;
+
+        IndexedDocument(int[] fieldLengths, String[] terms) {
+            this.fieldLengths = fieldLengths;
+            this.terms = terms;
+        }
+    }
+}
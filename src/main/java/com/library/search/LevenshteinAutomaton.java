@@ -0,0 +1,105 @@
+package com.library.search;
+
+import java.util.Arrays;
+
+/**
+ * An automaton accepting the strings within a maximum Levenshtein distance of a word.
+ *
+ * A state is the row of edit distances between the word's prefixes and the input read so
+ * far, with values capped at maxDistance + 1. Every input character advances the state in
+ * time linear in the word's length, and once no entry of the row is within the maximum
+ * distance no continuation can match, so a candidate is rejected as soon as its prefix
+ * strays too far rather than after a full distance computation. An instance is immutable
+ * and can be shared between threads.
+ */
+public class LevenshteinAutomaton {
+
+    private final char[] word;
+    private final int maxDistance;
+
+    /**
+     * Create an automaton
+     *
+     * @param word The word to match
+     * @param maxDistance The maximum number of insertions, deletions and substitutions
+     */
+    public LevenshteinAutomaton(String word, int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("The maximum distance cannot be negative");
+        }
+        this.word = word.toCharArray();
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Get the state before any input has been read
+     *
+     * @return The start state
+     */
+    public int[] start() {
+        int[] state = new int[word.length + 1];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = Math.min(i, maxDistance + 1);
+        }
+        return state;
+    }
+
+    /**
+     * Read one character
+     *
+     * @param state The current state, which is left unchanged
+     * @param c The character
+     * @return The next state
+     */
+    public int[] step(int[] state, char c) {
+        int[] next = new int[state.length];
+        next[0] = Math.min(state[0] + 1, maxDistance + 1);
+        for (int i = 1; i < state.length; i++) {
+            int substitution = state[i - 1] + (word[i - 1] == c ? 0 : 1);
+            int deletion = next[i - 1] + 1;
+            int insertion = state[i] + 1;
+            next[i] = Math.min(Math.min(substitution, deletion), Math.min(insertion, maxDistance + 1));
+        }
+        return next;
+    }
+
+    /**
+     * Check whether the input read so far is within the maximum distance of the word
+     *
+     * @param state The state after the input
+     * @return True if the input matches
+     */
+    public boolean isMatch(int[] state) {
+        return state[state.length - 1] <= maxDistance;
+    }
+
+    /**
+     * Check whether any continuation of the input read so far could match
+     *
+     * @param state The state after the input
+     * @return False if the state is dead
+     */
+    public boolean canMatch(int[] state) {
+        return Arrays.stream(state).min().getAsInt() <= maxDistance;
+    }
+
+    /**
+     * Run a candidate through the automaton
+     *
+     * @param candidate The candidate string
+     * @return The candidate's distance from the word, or -1 if it exceeds the maximum distance
+     */
+    public int distance(String candidate) {
+        if (Math.abs(candidate.length() - word.length) > maxDistance) {
+            return -1;
+        }
+        int[] state = start();
+        for (int i = 0; i < candidate.length(); i++) {
+            state = step(state, candidate.charAt(i));
+            if (!canMatch(state)) {
+                return -1;
+            }
+        }
+        return isMatch(state) ? state[state.length - 1] : -1;
+    }
+}
@@ -0,0 +1,221 @@
+package com.library.search;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bounded cache from query text to its embedding, with expiry and single-flight loading.
+ *
+ * Queries are keyed by their trimmed, lower-cased text with runs of whitespace collapsed,
+ * and that normalized text is what gets embedded, so queries differing only in case or spacing share one entry.
+ * Entries expire a fixed time after they were loaded and the least recently used entry is
+ * evicted once the cache is full. When several threads miss on the same query at once,
+ * only the first calls the loader; the others wait for its result instead of issuing
+ * their own remote call. Results the caller rejects as uncacheable (such as the empty
+ * embedding of a failed call) are handed to the waiting threads but not stored.
+ *
+ * Returned arrays are shared between callers and must not be modified.
+ */
+public class QueryEmbeddingCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Predicate<float[]> cacheable;
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    /**
+     * Create a cache
+     *
+     * @param maxEntries The maximum number of cached queries
+     * @param ttlMillis How long an embedding stays cached after it was loaded
+     * @param cacheable Whether a loaded embedding may be stored
+     */
+    public QueryEmbeddingCache(int maxEntries, long ttlMillis, Predicate<float[]> cacheable) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.cacheable = cacheable;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > QueryEmbeddingCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the embedding of a query, loading it on a miss
+     *
+     * @param query The query text
+     * @param loader Computes the embedding of the normalized query text
+     * @return The embedding
+     */
+    public float[] get(String query, Function<String, float[]> loader) {
+        String key = normalize(query);
+        float[] cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<float[]> load = new CompletableFuture<>();
+        CompletableFuture<float[]> pending = inFlight.putIfAbsent(key, load);
+        if (pending != null) {
+            // Another thread is already loading this query
+            coalesced.increment();
+            return await(pending);
+        }
+
+        try {
+            // A load that finished between the lookup and claiming the key has stored its result
+            cached = lookup(key);
+            if (cached != null) {
+                hits.increment();
+                load.complete(cached);
+                return cached;
+            }
+
+            misses.increment();
+            long start = System.nanoTime();
+            float[] embedding = loader.apply(key);
+            recordLoad(System.nanoTime() - start);
+
+            if (cacheable.test(embedding)) {
+                store(key, embedding);
+            }
+            load.complete(embedding);
+            return embedding;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Remove all cached embeddings
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Get the number of cached queries, including expired ones not yet removed
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Get the cache statistics
+     *
+     * @return Hit, miss and load counters, the hit rate and load latencies in milliseconds
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long coalescedCount = coalesced.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + coalescedCount + missCount;
+        long loadCount = loads.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("requests", requests);
+        stats.put("hits", hitCount);
+        stats.put("coalesced", coalescedCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("inFlight", inFlight.size());
+        // Coalesced requests did not make their own remote call, so they count towards the hit rate
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) (hitCount + coalescedCount) / requests);
+        stats.put("averageLoadMillis", loadCount == 0 ? 0.0 : loadNanos.sum() / 1_000_000.0 / loadCount);
+        stats.put("maxLoadMillis", maxLoadNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private float[] lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt >= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.embedding;
+        }
+    }
+
+    private void store(String key, float[] embedding) {
+        synchronized (entries) {
+            entries.put(key, new Entry(embedding, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    private void recordLoad(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+        maxLoadNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static float[] await(CompletableFuture<float[]> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            // Rethrow the loader's own exception rather than the wrapper
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final float[] embedding;
+        private final long expiresAt;
+
+        private Entry(float[] embedding, long expiresAt) {
+            this.embedding = embedding;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
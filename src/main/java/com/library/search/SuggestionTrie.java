@@ -0,0 +1,247 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A weighted radix trie answering "most popular completions of a prefix".
+ *
+ * Each key stores one or more suggestions with a weight, and the same suggestion may be
+ * stored under several keys (for example every word start of a title). Edges carry whole
+ * substrings, so chains of single-child nodes are collapsed. Every node also records the
+ * highest weight in its subtree, which lets {@link #topK} expand nodes best-first and stop
+ * after k suggestions without visiting the rest of the subtree. Queries take a read lock
+ * and updates a write lock.
+ */
+public class SuggestionTrie {
+
+    private final Node root = new Node("");
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int entryCount;
+
+    /**
+     * Change the weight of a suggestion under a key, adding it if it is new.
+     * A suggestion whose weight drops to zero or below is removed.
+     *
+     * @param key The normalized key the suggestion completes
+     * @param suggestion The suggestion text
+     * @param delta The weight to add, negative to subtract
+     */
+    public void add(String key, String suggestion, long delta) {
+        lock.writeLock().lock();
+        try {
+            if (delta > 0) {
+                insert(root, key, 0, suggestion, delta);
+            } else if (delta < 0) {
+                subtract(root, key, 0, suggestion, -delta);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(Node node, String key, int depth, String suggestion, long delta) {
+        if (depth == key.length()) {
+            long weight = node.entries.merge(suggestion, delta, Long::sum);
+            if (weight == delta) {
+                entryCount++;
+            }
+        } else {
+            char first = key.charAt(depth);
+            Node child = node.children.get(first);
+            if (child == null) {
+                child = new Node(key.substring(depth));
+                node.children.put(first, child);
+            } else {
+                int common = commonPrefix(child.label, key, depth);
+                if (common < child.label.length()) {
+                    // Split the edge at the point where the key diverges
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.children.put(child.label.charAt(0), child);
+                    split.maxWeight = child.maxWeight;
+                    node.children.put(first, split);
+                    child = split;
+                }
+            }
+            insert(child, key, depth + child.label.length(), suggestion, delta);
+        }
+        node.updateMaxWeight();
+    }
+
+    private void subtract(Node node, String key, int depth, String suggestion, long amount) {
+        if (depth == key.length()) {
+            Long weight = node.entries.get(suggestion);
+            if (weight == null) {
+                return;
+            }
+            if (weight <= amount) {
+                node.entries.remove(suggestion);
+                entryCount--;
+            } else {
+                node.entries.put(suggestion, weight - amount);
+            }
+        } else {
+            char first = key.charAt(depth);
+            Node child = node.children.get(first);
+            if (child == null || !key.startsWith(child.label, depth)) {
+                return;
+            }
+            subtract(child, key, depth + child.label.length(), suggestion, amount);
+
+            // Prune the child if it became empty, or merge it into its only child
+            if (child.entries.isEmpty() && child.children.isEmpty()) {
+                node.children.remove(first);
+            } else if (child.entries.isEmpty() && child.children.size() == 1) {
+                Node grandchild = child.children.values().iterator().next();
+                grandchild.label = child.label + grandchild.label;
+                node.children.put(first, grandchild);
+            }
+        }
+        node.updateMaxWeight();
+    }
+
+    /**
+     * Get the highest-weighted suggestions for keys starting with a prefix.
+     * Suggestions stored under several matching keys are returned once.
+     *
+     * @param prefix The normalized prefix
+     * @param k The maximum number of suggestions
+     * @return The suggestions, highest weight first, ties in alphabetical order
+     */
+    public List<String> topK(String prefix, int k) {
+        List<String> results = new ArrayList<>(Math.max(0, k));
+        if (k <= 0) {
+            return results;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = find(prefix);
+            if (node == null) {
+                return results;
+            }
+
+            // Best-first over nodes (by subtree maximum) and entries (by weight)
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.ORDER);
+            queue.add(new Candidate(node.maxWeight, null, node));
+            Set<String> seen = new HashSet<>();
+            while (!queue.isEmpty() && results.size() < k) {
+                Candidate candidate = queue.poll();
+                if (candidate.node == null) {
+                    if (seen.add(candidate.suggestion)) {
+                        results.add(candidate.suggestion);
+                    }
+                    continue;
+                }
+                for (Map.Entry<String, Long> entry : candidate.node.entries.entrySet()) {
+                    queue.add(new Candidate(entry.getValue(), entry.getKey(), null));
+                }
+                for (Node child : candidate.node.children.values()) {
+                    queue.add(new Candidate(child.maxWeight, null, child));
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the node whose subtree holds exactly the keys starting with the prefix
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int depth = 0;
+        while (depth < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(depth));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, depth);
+            if (depth + common == prefix.length()) {
+                // The prefix ends inside or at the end of this edge
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            depth += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Get the number of (key, suggestion) entries
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entryCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final Map<String, Long> entries = new HashMap<>(2);
+        private long maxWeight;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        void updateMaxWeight() {
+            long max = 0;
+            for (long weight : entries.values()) {
+                max = Math.max(max, weight);
+            }
+            for (Node child : children.values()) {
+                max = Math.max(max, child.maxWeight);
+            }
+            maxWeight = max;
+        }
+    }
+
+    /**
+     * A node to expand or a suggestion to emit, ordered by weight
+     */
+    private static final class Candidate {
+        static final Comparator<Candidate> ORDER = Comparator
+                .comparingLong((Candidate candidate) -> candidate.weight).reversed()
+                // Expand nodes before emitting suggestions of equal weight so ties can be ordered
+                .thenComparing(candidate -> candidate.node == null)
+                .thenComparing(candidate -> candidate.suggestion, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        private final long weight;
+        private final String suggestion;
+        private final Node node;
+
+        Candidate(long weight, String suggestion, Node node) {
+            this.weight = weight;
+            this.suggestion = suggestion;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns text into search terms: lowercased alphanumeric tokens without stop words,
+ * reduced by a few suffix-stripping rules. Books and queries are analyzed the same way
+ * so their terms can be compared directly.
+ */
+public final class TextAnalyzer {
+
+    // Common English stop words
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "the", "and", "or", "but", "about", "above", "after", "along", "amid", "among",
+            "as", "at", "by", "for", "from", "in", "into", "like", "minus", "near", "of", "off", "on",
+            "onto", "out", "over", "past", "per", "plus", "since", "till", "to", "under", "until", "up",
+            "via", "vs", "with", "that", "can", "cannot", "could", "may", "might", "must",
+            "need", "ought", "shall", "should", "will", "would", "have", "had", "has", "having", "be",
+            "is", "am", "are", "was", "were", "being", "been", "get", "gets", "got", "gotten",
+            "getting", "i", "you", "he", "she", "it", "we", "they", "who", "which", "this", "that"
+    ));
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Preprocess text by tokenizing, removing stop words, and stemming
+     *
+     * @param text The text to preprocess, may be null
+     * @return The terms of the text, in order
+     */
+    public static List<String> analyze(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> terms = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            boolean tokenChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase();
+                if (!STOP_WORDS.contains(token)) {
+                    String term = stem(token);
+                    if (!term.isEmpty()) {
+                        terms.add(term);
+                    }
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Apply simple stemming to a word
+     *
+     * @param word The word to stem
+     * @return The stemmed word
+     */
+    public static String stem(String word) {
+        // Very simple stemming rules
+        if (word.endsWith("ing")) {
+            return word.substring(0, word.length() - 3);
+        } else if (word.endsWith("ed")) {
+            return word.substring(0, word.length() - 2);
+        } else if (word.endsWith("s") && !word.endsWith("ss")) {
+            return word.substring(0, word.length() - 1);
+        } else {
+            return word;
+        }
+    }
+}
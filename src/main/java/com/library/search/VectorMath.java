@@ -0,0 +1,155 @@
+package com.library.search;
+
+/**
+ * Vector kernels for similarity search.
+ *
+ * Vectors are normalized once when stored, so cosine similarity is a plain dot product.
+ * Dot products run on the JDK Vector API when the {@code jdk.incubator.vector} module is
+ * present (start the JVM with {@code --add-modules jdk.incubator.vector}, which
+ * {@code spring-boot:run} does but {@code java -jar} needs on its command line) and
+ * otherwise on an unrolled scalar loop, saying so once at startup. Vectors can also be
+ * quantized to one signed byte per component with a per-vector scale, a quarter of the
+ * size of the float copy, for a cheap first pass whose candidates are then re-ranked with
+ * the float vectors.
+ */
+public final class VectorMath {
+
+    private static final Kernel KERNEL = loadKernel();
+
+    private VectorMath() {
+    }
+
+    /**
+     * Dot products over float and byte vectors of equal length
+     */
+    interface Kernel {
+        float dot(float[] a, float[] b);
+
+        int dot(byte[] a, byte[] b);
+    }
+
+    private static Kernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Kernel) Class.forName("com.library.search.PanamaVectorKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println("Vector API kernel unavailable, using scalar kernel: " + e);
+            }
+        } else {
+            System.out.println("Vector API module not loaded, using scalar kernel; "
+                    + "start the JVM with --add-modules jdk.incubator.vector to enable it");
+        }
+        return new ScalarKernel();
+    }
+
+    /**
+     * Get the name of the kernel in use
+     *
+     * @return The simple class name of the kernel
+     */
+    public static String kernelName() {
+        return KERNEL.getClass().getSimpleName();
+    }
+
+    /**
+     * Compute the dot product of two float vectors
+     *
+     * @param a The first vector
+     * @param b The second vector, of the same length
+     * @return The dot product
+     */
+    public static float dot(float[] a, float[] b) {
+        return KERNEL.dot(a, b);
+    }
+
+    /**
+     * Compute the dot product of two quantized vectors, before scaling
+     *
+     * @param a The first vector
+     * @param b The second vector, of the same length
+     * @return The integer dot product
+     */
+    public static int dot(byte[] a, byte[] b) {
+        return KERNEL.dot(a, b);
+    }
+
+    /**
+     * Scale a vector to unit length
+     *
+     * @param vector The vector
+     * @return A normalized copy, or null if the vector is all zeros
+     */
+    public static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(KERNEL.dot(vector, vector));
+        if (!(norm > 0.0f)) {
+            return null;
+        }
+        float scale = 1.0f / norm;
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    /**
+     * Quantize a vector to signed bytes, mapping its largest component to +/-127
+     *
+     * @param vector The vector
+     * @param codes The array receiving one byte per component
+     * @return The scale that converts a byte back to a component
+     */
+    public static float quantize(float[] vector, byte[] codes) {
+        float max = 0.0f;
+        for (float value : vector) {
+            max = Math.max(max, Math.abs(value));
+        }
+        if (max == 0.0f) {
+            return 0.0f;
+        }
+        float scale = max / 127.0f;
+        for (int i = 0; i < vector.length; i++) {
+            codes[i] = (byte) Math.round(vector[i] / scale);
+        }
+        return scale;
+    }
+
+    /**
+     * Scalar kernel, unrolled with independent accumulators so the loop is not bound by
+     * the latency of a single chain of additions
+     */
+    static final class ScalarKernel implements Kernel {
+        @Override
+        public float dot(float[] a, float[] b) {
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (int bound = a.length & ~3; i < bound; i += 4) {
+                s0 += a[i] * b[i];
+                s1 += a[i + 1] * b[i + 1];
+                s2 += a[i + 2] * b[i + 2];
+                s3 += a[i + 3] * b[i + 3];
+            }
+            for (; i < a.length; i++) {
+                s0 += a[i] * b[i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        @Override
+        public int dot(byte[] a, byte[] b) {
+            int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (int bound = a.length & ~3; i < bound; i += 4) {
+                s0 += a[i] * b[i];
+                s1 += a[i + 1] * b[i + 1];
+                s2 += a[i + 2] * b[i + 2];
+                s3 += a[i + 3] * b[i + 3];
+            }
+            for (; i < a.length; i++) {
+                s0 += a[i] * b[i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+}
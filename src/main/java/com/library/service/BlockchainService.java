@@ -1,28 +1,90 @@
 package com.library.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.library.blockchain.BlockSealer;
+import com.library.blockchain.BlockStore;
+import com.library.blockchain.BlockSummary;
 import com.library.blockchain.Blockchain;
+import com.library.blockchain.ChainVerifier;
+import com.library.blockchain.ForkJoinMiner;
+import com.library.blockchain.InMemoryBlockStore;
+import com.library.blockchain.LedgerKeys;
+import com.library.blockchain.LedgerPage;
+import com.library.blockchain.LedgerState;
+import com.library.blockchain.MerkleProof;
+import com.library.blockchain.SealingPolicy;
+import com.library.blockchain.SegmentedBlockStore;
+import com.library.blockchain.SignatureVerifier;
+import com.library.blockchain.SnapshotStore;
 import com.library.blockchain.Transaction;
-import com.library.model.Book;
-import com.library.model.Loan;
-import com.library.model.User;
+import com.library.blockchain.VerificationCheckpoint;
 import com.library.repository.BookRepository;
 import com.library.repository.LoanRepository;
 import com.library.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 public class BlockchainService {
 
     private Blockchain blockchain;
-    private static final int MINING_DIFFICULTY = 2; // Number of leading zeros required in block hash
+    private ForkJoinMiner miner;
+    private ChainVerifier chainVerifier;
+    private BlockSealer blockSealer;
+    private LedgerKeys ledgerKeys;
+    private SignatureVerifier signatureVerifier;
+    private static final String CHECKPOINT_FILE = "verification-checkpoint.properties";
+    private static final String SNAPSHOT_DIRECTORY = "snapshots";
     private static final String MINING_REWARD = "LIBRARY_TOKEN"; // Reward for mining a block
     private static final String MINING_REWARD_ADDRESS = "LIBRARY_SYSTEM"; // Address to receive mining rewards
 
+    @Value("${blockchain.mining.difficulty:2}")
+    private int miningDifficulty; // Number of leading zeros required in block hash
+
+    @Value("${blockchain.mining.parallelism:0}")
+    private int miningParallelism; // Number of mining threads, 0 for one per processor
+
+    @Value("${blockchain.sealing.max-transactions:100}")
+    private int sealingMaxTransactions; // Pending transactions that trigger a new block
+
+    @Value("${blockchain.sealing.max-delay-ms:10000}")
+    private long sealingMaxDelayMs; // Longest a transaction waits before a block is sealed
+
+    @Value("${blockchain.bootstrap.enabled:false}")
+    private boolean bootstrapEnabled; // Backfill historical loans before sealing new blocks
+
+    @Value("${blockchain.storage.enabled:true}")
+    private boolean storageEnabled;
+
+    @Value("${blockchain.storage.directory:data/ledger}")
+    private String storageDirectory;
+
+    @Value("${blockchain.storage.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${blockchain.snapshot.interval-blocks:1000}")
+    private int snapshotIntervalBlocks; // Blocks between state snapshots, 0 to disable
+
+    @Value("${blockchain.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${blockchain.archive.directory:data/ledger-archive}")
+    private String archiveDirectory;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -32,134 +94,209 @@ public class BlockchainService {
     @Autowired
     private LoanRepository loanRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Initialize the blockchain
      */
     @PostConstruct
     public void init() {
-        blockchain = new Blockchain(MINING_DIFFICULTY, MINING_REWARD);
-        System.out.println("Blockchain initialized with difficulty " + MINING_DIFFICULTY);
+        BlockStore store = storageEnabled
+                ? new SegmentedBlockStore(Paths.get(storageDirectory), segmentSizeMb * 1024 * 1024)
+                : new InMemoryBlockStore();
+        SnapshotStore snapshots = storageEnabled && snapshotIntervalBlocks > 0
+                ? new SnapshotStore(Paths.get(storageDirectory, SNAPSHOT_DIRECTORY), snapshotIntervalBlocks)
+                : null;
+        blockchain = new Blockchain(miningDifficulty, MINING_REWARD, store, snapshots);
+
+        int parallelism = miningParallelism > 0 ? miningParallelism : Runtime.getRuntime().availableProcessors();
+        miner = new ForkJoinMiner(parallelism);
+        blockchain.setMiner(miner);
+        ledgerKeys = storageEnabled ? LedgerKeys.loadOrCreate(Paths.get(storageDirectory)) : LedgerKeys.generate();
+        signatureVerifier = new SignatureVerifier(ledgerKeys.getPublicKey(), parallelism);
+        blockchain.setSignatureVerifier(signatureVerifier);
+        blockchain.setLedgerKeys(ledgerKeys);
+        chainVerifier = new ChainVerifier(blockchain,
+                storageEnabled ? Paths.get(storageDirectory, CHECKPOINT_FILE) : null);
+        blockSealer = new BlockSealer(blockchain,
+                new SealingPolicy(sealingMaxTransactions, Duration.ofMillis(sealingMaxDelayMs)),
+                MINING_REWARD_ADDRESS);
+        if (!bootstrapEnabled) {
+            blockSealer.start();
+        }
+        System.out.println("Blockchain initialized with difficulty " + miningDifficulty
+                + ", " + parallelism + " mining threads and " + blockchain.size() + " blocks");
     }
 
     /**
-     * Record a loan transaction in the blockchain
-     *
-     * @param loan The loan to record
+     * Start sealing new blocks once the historical backfill has finished.
+     * Transactions recorded during the backfill wait in the pending queue until then.
      */
-    public void recordLoan(Loan loan) {
-        User user = loan.getUser();
-        Book book = loan.getBook();
-
-        Transaction transaction = new Transaction(
-                "LOAN",
-                user.getId(),
-                user.getUsername(),
-                book.getId(),
-                book.getTitle(),
-                "Book loaned on " + loan.getLoanDate() + " with due date " + loan.getDueDate()
-        );
+    public synchronized void completeBootstrap() {
+        if (bootstrapEnabled) {
+            bootstrapEnabled = false;
+            blockSealer.start();
+        }
+    }
 
-        // In a real implementation, we would sign the transaction with the user's private key
-        transaction.generateSignature("library_private_key");
+    /**
+     * Get the directory holding the ledger files
+     *
+     * @return The storage directory, or null if the ledger is kept in memory
+     */
+    public Path getStorageDirectory() {
+        return storageEnabled ? Paths.get(storageDirectory) : null;
+    }
 
-        blockchain.addTransaction(transaction);
-        System.out.println("Loan transaction added to pending transactions");
+    /**
+     * Release the ledger files on shutdown
+     */
+    @PreDestroy
+    public void shutdown() {
+        blockSealer.stop();
+        miner.shutdown();
+        signatureVerifier.shutdown();
+        blockchain.close();
     }
 
     /**
-     * Record a return transaction in the blockchain
+     * Record a ledger event as a pending transaction in the blockchain
      *
-     * @param loan The loan to record the return for
+     * @param event The event to record
      */
-    public void recordReturn(Loan loan) {
-        User user = loan.getUser();
-        Book book = loan.getBook();
-
+    public void record(LedgerEvent event) {
         Transaction transaction = new Transaction(
-                "RETURN",
-                user.getId(),
-                user.getUsername(),
-                book.getId(),
-                book.getTitle(),
-                "Book returned on " + loan.getReturnDate()
+                event.getType(),
+                event.getUserId(),
+                event.getUsername(),
+                event.getBookId(),
+                event.getBookTitle(),
+                event.getDetails()
         );
+        transaction.setAmount(event.getAmount());
+        if (event.getTransactionId() != null) {
+            transaction.setTransactionId(event.getTransactionId());
+        }
 
-        // In a real implementation, we would sign the transaction with the user's private key
-        transaction.generateSignature("library_private_key");
+        // Signed with the library's key; the sealer rejects transactions that fail verification
+        ledgerKeys.sign(transaction);
 
         blockchain.addTransaction(transaction);
-        System.out.println("Return transaction added to pending transactions");
     }
 
     /**
-     * Record a fine payment transaction in the blockchain
+     * Sign a transaction with the library's key
      *
-     * @param loan The loan to record the fine payment for
-     * @param amount The amount of the fine
+     * @param transaction The transaction to sign
      */
-    public void recordFinePayment(Loan loan, double amount) {
-        User user = loan.getUser();
-        Book book = loan.getBook();
-
-        Transaction transaction = new Transaction(
-                "FINE_PAYMENT",
-                user.getId(),
-                user.getUsername(),
-                book.getId(),
-                book.getTitle(),
-                "Fine payment of $" + amount + " for overdue book"
-        );
-
-        // In a real implementation, we would sign the transaction with the user's private key
-        transaction.generateSignature("library_private_key");
-
-        blockchain.addTransaction(transaction);
-        System.out.println("Fine payment transaction added to pending transactions");
+    public void sign(Transaction transaction) {
+        ledgerKeys.sign(transaction);
     }
 
     /**
-     * Mine pending transactions every 5 minutes
+     * Mine the pending transactions immediately instead of waiting for the sealer
      */
-    @Scheduled(fixedRate = 300000) // 5 minutes
     public void minePendingTransactions() {
-        if (blockchain.getPendingTransactions().isEmpty()) {
+        System.out.println("Mining pending transactions...");
+        if (!blockchain.minePendingTransactions(MINING_REWARD_ADDRESS)) {
             System.out.println("No pending transactions to mine");
             return;
         }
-
-        System.out.println("Mining pending transactions...");
-        blockchain.minePendingTransactions(MINING_REWARD_ADDRESS);
-        System.out.println("Blockchain now has " + blockchain.getChain().size() + " blocks");
+        System.out.println("Blockchain now has " + blockchain.size() + " blocks");
     }
 
     /**
-     * Get all transactions for a specific user
+     * Get a page of the transactions for a specific user
      *
      * @param userId The ID of the user
-     * @return A list of transactions involving the user
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions involving the user
      */
-    public List<Transaction> getUserTransactions(Long userId) {
-        return blockchain.getTransactionsForUser(userId);
+    public LedgerPage<Transaction> getUserTransactions(Long userId, int offset, int limit) {
+        return blockchain.getTransactionsForUser(userId, offset, limit);
     }
 
     /**
-     * Get all transactions for a specific book
+     * Get a page of the transactions for a specific book
      *
      * @param bookId The ID of the book
-     * @return A list of transactions involving the book
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions involving the book
      */
-    public List<Transaction> getBookTransactions(Long bookId) {
-        return blockchain.getTransactionsForBook(bookId);
+    public LedgerPage<Transaction> getBookTransactions(Long bookId, int offset, int limit) {
+        return blockchain.getTransactionsForBook(bookId, offset, limit);
     }
 
     /**
-     * Get all transactions of a specific type
+     * Get a page of the transactions of a specific type
      *
      * @param type The type of transaction
-     * @return A list of transactions of the specified type
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions of the specified type
+     */
+    public LedgerPage<Transaction> getTransactionsByType(String type, int offset, int limit) {
+        return blockchain.getTransactionsByType(type, offset, limit);
+    }
+
+    /**
+     * Get a page of the transactions created within a time range
+     *
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, inclusive
+     * @param offset The number of transactions to skip
+     * @param limit The maximum number of transactions to return
+     * @return A page of transactions in timestamp order
+     */
+    public LedgerPage<Transaction> getTransactionsBetween(LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        return blockchain.getTransactionsBetween(from, to, offset, limit);
+    }
+
+    /**
+     * Get the header-only summaries of a page of blocks, newest first
+     *
+     * @param before The cursor: only blocks with a lower index are listed
+     * @param limit The maximum number of blocks to return
+     * @return The block summaries in descending index order
+     */
+    public List<BlockSummary> getBlockSummaries(int before, int limit) {
+        return blockchain.getBlockSummariesBefore(before, limit);
+    }
+
+    /**
+     * Write a range of blocks, with their transactions, as newline-delimited JSON.
+     * Blocks are read and serialized one at a time, so memory use does not depend on the
+     * size of the range.
+     *
+     * @param from The index of the first block, inclusive
+     * @param to The index of the last block, inclusive
+     * @param out The stream to write to
+     * @throws IOException If writing to the stream fails
      */
-    public List<Transaction> getTransactionsByType(String type) {
-        return blockchain.getTransactionsByType(type);
+    public void exportBlocks(int from, int to, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer();
+        for (int i = from; i <= to; i++) {
+            out.write(writer.writeValueAsBytes(blockchain.getBlock(i)));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Get the Merkle inclusion proof for a transaction
+     *
+     * @param blockIndex The index of the block containing the transaction
+     * @param transactionId The ID of the transaction
+     * @return The inclusion proof, or null if the block or transaction does not exist
+     */
+    public MerkleProof getMerkleProof(int blockIndex, String transactionId) {
+        if (blockIndex < blockchain.getFirstIndex() || blockIndex >= blockchain.size()) {
+            return null;
+        }
+        return blockchain.getMerkleProof(blockIndex, transactionId);
     }
 
     /**
@@ -172,50 +309,93 @@ public class BlockchainService {
     }
 
     /**
-     * Verify the integrity of the blockchain
+     * Get the number of pending transactions without copying them
+     *
+     * @return The number of pending transactions
+     */
+    public int getPendingCount() {
+        return blockchain.getPendingCount();
+    }
+
+    /**
+     * Verify the integrity of the blockchain incrementally.
+     * Only blocks added since the last verification checkpoint are checked.
      *
      * @return True if the blockchain is valid
      */
     public boolean verifyBlockchain() {
-        return blockchain.isChainValid();
+        return chainVerifier.verifyIncremental();
     }
 
     /**
-     * Get the entire blockchain
+     * Verify the integrity of the whole blockchain from the genesis block
      *
-     * @return The blockchain
+     * @return True if the blockchain is valid
      */
-    public Blockchain getBlockchain() {
-        return blockchain;
+    public boolean auditBlockchain() {
+        return chainVerifier.verifyFull();
+    }
+
+    /**
+     * Run a full audit of the blockchain in the background every hour by default.
+     * The audit runs on its own executor so that it does not hold up the other scheduled
+     * jobs, which share Spring's single scheduler thread.
+     */
+    @Async("auditExecutor")
+    @Scheduled(fixedDelayString = "${blockchain.audit.interval-ms:3600000}",
+            initialDelayString = "${blockchain.audit.initial-delay-ms:60000}")
+    public void scheduledAudit() {
+        boolean valid = auditBlockchain();
+        System.out.println("Blockchain audit completed: " + (valid ? "valid" : "invalid at block " + chainVerifier.getFirstInvalidBlock()));
+    }
+
+    /**
+     * Archive ledger segments that are verified and covered by a state snapshot, daily by default
+     */
+    @Scheduled(fixedDelayString = "${blockchain.archive.interval-ms:86400000}",
+            initialDelayString = "${blockchain.archive.initial-delay-ms:600000}")
+    public void archiveLedger() {
+        if (!archiveEnabled || !storageEnabled || !verifyBlockchain()) {
+            return;
+        }
+        int verifiedUpTo = chainVerifier.getCheckpoint().getBlockIndex();
+        int firstIndex = blockchain.archiveBefore(verifiedUpTo, Paths.get(archiveDirectory));
+        System.out.println("Ledger now starts at block " + firstIndex);
     }
 
     /**
-     * Record a loan modification transaction in the blockchain
+     * Get the ledger state derived from the sealed blocks
      *
-     * @param loan The loan being modified
-     * @param oldDueDate The original due date
-     * @param newDueDate The new due date
+     * @return The current ledger state
      */
-    public void recordLoanModification(Loan loan, java.time.LocalDate oldDueDate, java.time.LocalDate newDueDate) {
-        User user = loan.getUser();
-        Book book = loan.getBook();
+    public LedgerState getLedgerState() {
+        return blockchain.getLedgerState();
+    }
 
-        Transaction transaction = new Transaction(
-                "LOAN_MODIFICATION",
-                user.getId(),
-                user.getUsername(),
-                book.getId(),
-                book.getTitle(),
-                "Loan due date modified from " + oldDueDate + " to " + newDueDate
-        );
+    /**
+     * Get the last verification checkpoint
+     *
+     * @return The checkpoint
+     */
+    public VerificationCheckpoint getVerificationCheckpoint() {
+        return chainVerifier.getCheckpoint();
+    }
 
-        // Add the transaction to the pending transactions
-        blockchain.addTransaction(transaction);
+    /**
+     * Get the completion time of the last full audit
+     *
+     * @return The time of the last full audit, or null if none has run yet
+     */
+    public LocalDateTime getLastFullAudit() {
+        return chainVerifier.getLastFullAudit();
+    }
 
-        // Mine a new block if there are enough pending transactions
-        if (blockchain.getPendingTransactions().size() >= 3) {
-            System.out.println("Mining a new block with loan modification transaction...");
-            blockchain.minePendingTransactions(MINING_REWARD_ADDRESS);
-        }
+    /**
+     * Get the entire blockchain
+     *
+     * @return The blockchain
+     */
+    public Blockchain getBlockchain() {
+        return blockchain;
     }
 }
@@ -0,0 +1,75 @@
+package com.library.service;
+
+import com.library.model.Book;
+
+/**
+ * Application event announcing that a book was added to, changed in or removed from the
+ * catalog, so that in-memory search indexes can follow.
+ *
+ * The book's columns are copied into a detached instance when the event is created, so
+ * listeners running after the publishing transaction has committed never touch the JPA
+ * entity or its lazy collections.
+ */
+public class CatalogEvent {
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Book book;
+
+    private CatalogEvent(Type type, Book book) {
+        this.type = type;
+        this.book = new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getPublicationDate(), book.getPublisher(), book.getCategory(), book.getDescription(),
+                book.getAvailableCopies(), book.getTotalCopies(), book.getCoverImageUrl(), book.getLanguage(),
+                book.getPages());
+    }
+
+    /**
+     * Create an event for a newly saved book
+     *
+     * @param book The saved book
+     * @return The event
+     */
+    public static CatalogEvent added(Book book) {
+        return new CatalogEvent(Type.ADDED, book);
+    }
+
+    /**
+     * Create an event for an updated book
+     *
+     * @param book The updated book
+     * @return The event
+     */
+    public static CatalogEvent updated(Book book) {
+        return new CatalogEvent(Type.UPDATED, book);
+    }
+
+    /**
+     * Create an event for a deleted book
+     *
+     * @param book The book as it was before deletion
+     * @return The event
+     */
+    public static CatalogEvent deleted(Book book) {
+        return new CatalogEvent(Type.DELETED, book);
+    }
+
+    // Getters
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBookId() {
+        return book.getId();
+    }
+
+    public Book getBook() {
+        return book;
+    }
+}
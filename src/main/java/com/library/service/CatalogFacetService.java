@@ -0,0 +1,142 @@
+package com.library.service;
+
+import com.library.exception.ResourceNotFoundException;
+import com.library.model.Book;
+import com.library.payload.response.BookResponse;
+import com.library.payload.response.FacetedSearchResponse;
+import com.library.repository.BookRepository;
+import com.library.search.FacetIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class CatalogFacetService {
+
+    public static final String CATEGORY = "category";
+    public static final String LANGUAGE = "language";
+    public static final String PUBLISHER = "publisher";
+    public static final String DECADE = "decade";
+
+    private static final Set<String> FACETS = Set.of(CATEGORY, LANGUAGE, PUBLISHER, DECADE);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    // The most values reported per facet in a search, most frequent first
+    @Value("${search.facets.max-values:50}")
+    private int maxFacetValues;
+
+    // Category, language, publisher and decade of every book, kept in step with the catalog
+    private final FacetIndex facetIndex = new FacetIndex(CATEGORY, LANGUAGE, PUBLISHER, DECADE);
+
+    /**
+     * Build the facet index from the catalog
+     */
+    @PostConstruct
+    public void buildIndex() {
+        long startTime = System.currentTimeMillis();
+        for (Book book : bookRepository.findAll()) {
+            indexBook(book);
+        }
+        System.out.println("Indexed facets of " + facetIndex.size() + " books in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * Keep the facet index in step with the catalog once a change has committed.
+     * Changes made outside a transaction are applied immediately.
+     *
+     * @param event The catalog change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogEvent(CatalogEvent event) {
+        if (event.getType() == CatalogEvent.Type.DELETED) {
+            facetIndex.remove(event.getBookId());
+        } else {
+            indexBook(event.getBook());
+        }
+    }
+
+    private void indexBook(Book book) {
+        Map<String, String> values = new HashMap<>();
+        values.put(CATEGORY, book.getCategory());
+        values.put(LANGUAGE, book.getLanguage());
+        values.put(PUBLISHER, book.getPublisher());
+        values.put(DECADE, decadeOf(book));
+        facetIndex.put(book.getId(), values);
+    }
+
+    private static String decadeOf(Book book) {
+        if (book.getPublicationDate() == null) {
+            return null;
+        }
+        return Math.floorDiv(book.getPublicationDate().getYear(), 10) * 10 + "s";
+    }
+
+    /**
+     * Find the books matching facet filters, with the facet counts for those filters.
+     * Within a facet any selected value matches; across facets all must match. The counts of
+     * a filtered facet are computed without its own filter, so they show the alternatives.
+     *
+     * @param filters The selected values of each facet (category, language, publisher, decade)
+     * @param page The page number, starting at 0
+     * @param size The page size
+     * @return The page of books in ID order, the total number of matches and the facet counts
+     */
+    public FacetedSearchResponse search(Map<String, ? extends Set<String>> filters, int page, int size) {
+        // A page past the last match is empty rather than wrapping round to a negative offset
+        int offset = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+        FacetIndex.Result result = facetIndex.query(filters, offset, size, maxFacetValues);
+        List<BookResponse> books = loadBooks(result.getIds()).stream()
+                .map(BookResponse::new)
+                .collect(Collectors.toList());
+        return new FacetedSearchResponse(result.getTotal(), page, size, books, result.getFacets());
+    }
+
+    /**
+     * Get every value of a facet with its number of books
+     *
+     * @param facet The facet (category, language, publisher or decade)
+     * @return The values in alphabetical order
+     */
+    public List<FacetIndex.FacetCount> getFacetValues(String facet) {
+        if (!FACETS.contains(facet)) {
+            throw new ResourceNotFoundException("Facet not found: " + facet);
+        }
+        return facetIndex.values(facet);
+    }
+
+    /**
+     * Find all books with a facet value
+     *
+     * @param facet The facet (category, language, publisher or decade)
+     * @param value The value, matched case-insensitively
+     * @return The books in ID order
+     */
+    public List<Book> findByFacet(String facet, String value) {
+        if (!FACETS.contains(facet)) {
+            throw new ResourceNotFoundException("Facet not found: " + facet);
+        }
+        FacetIndex.Result result = facetIndex.query(Map.of(facet, Set.of(value)), 0, Integer.MAX_VALUE, 0);
+        return loadBooks(result.getIds());
+    }
+
+    /**
+     * Load books by ID, keeping the order of the IDs
+     */
+    private List<Book> loadBooks(List<Long> ids) {
+        Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,267 @@
+package com.library.service;
+
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the semantic search index filled with up-to-date book embeddings in the background.
+ *
+ * Books to embed are queued by ID, so repeated changes to a book before it is processed
+ * collapse into one. A dispatcher thread takes up to a batch of books, waiting briefly for
+ * more to arrive, and hands the batch to the embedding executor; a semaphore caps the
+ * number of batch requests in flight. Books whose stored embedding still matches their text
+ * are indexed without calling the API, the rest are embedded with one batch request. Each
+ * queued book carries a generation, and results for a book that was changed or deleted
+ * while its batch was in flight are discarded; the generation is checked and the result
+ * indexed under the same lock a delete holds while it drops the generation and removes the
+ * book, so a delete cannot slip between the check and the indexing. On startup the whole catalog is queued,
+ * and a periodic sweep re-queues any book whose embedding is missing or stale, for example
+ * after a failed request.
+ */
+@Component
+public class EmbeddingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingPipeline.class);
+
+    @Value("${semantic.embeddings.batch-size:32}")
+    private int batchSize;
+
+    @Value("${semantic.embeddings.concurrency:4}")
+    private int concurrency;
+
+    @Value("${semantic.embeddings.linger-ms:200}")
+    private long lingerMs;
+
+    @Autowired
+    private SemanticSearchService semanticSearchService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    @Qualifier("embeddingExecutor")
+    private ThreadPoolTaskExecutor embeddingExecutor;
+
+    // Books waiting to be embedded, oldest first; guarded by this
+    private final LinkedHashMap<Long, Book> pending = new LinkedHashMap<>();
+
+    // The generation of the latest change to each book
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong nextGeneration = new AtomicLong();
+
+    // Held while checking a generation and indexing, and while removing a deleted book
+    private final Object indexLock = new Object();
+
+    private Semaphore permits;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        permits = new Semaphore(concurrency);
+        running = true;
+        dispatcher = new Thread(this::dispatch, "embedding-pipeline");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join();
+    }
+
+    /**
+     * Queue the whole catalog once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<Book> books = bookRepository.findAll();
+        for (Book book : books) {
+            enqueue(book);
+        }
+        logger.info("Queued {} books for embedding", books.size());
+    }
+
+    /**
+     * Queue a changed book, or drop a deleted one, once the change has committed
+     *
+     * @param event The catalog change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogEvent(CatalogEvent event) {
+        if (event.getType() == CatalogEvent.Type.DELETED) {
+            synchronized (indexLock) {
+                synchronized (this) {
+                    pending.remove(event.getBookId());
+                    generations.remove(event.getBookId());
+                }
+                semanticSearchService.removeBook(event.getBookId());
+            }
+        } else {
+            enqueue(event.getBook());
+        }
+    }
+
+    /**
+     * Re-queue books whose embedding is missing or no longer matches their text
+     */
+    @Scheduled(fixedDelayString = "${semantic.embeddings.sweep-interval-ms:600000}",
+            initialDelayString = "${semantic.embeddings.sweep-interval-ms:600000}")
+    public void sweep() {
+        int queued = 0;
+        for (Book book : bookRepository.findAll()) {
+            if (!semanticSearchService.isIndexedCurrent(book)) {
+                enqueue(book);
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            logger.info("Queued {} books with missing or stale embeddings", queued);
+        }
+    }
+
+    /**
+     * Get the number of books waiting to be embedded
+     *
+     * @return The number of queued books
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private synchronized void enqueue(Book book) {
+        // A book already queued keeps its place but is replaced by the latest copy
+        pending.put(book.getId(), book);
+        generations.put(book.getId(), nextGeneration.incrementAndGet());
+        notifyAll();
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                permits.acquire();
+                Batch batch;
+                try {
+                    batch = takeBatch();
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+                embeddingExecutor.execute(() -> {
+                    try {
+                        process(batch);
+                    } catch (Exception e) {
+                        logger.error("Failed to embed a batch of {} books", batch.books.size(), e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wait for queued books and take up to a batch of them, lingering briefly for a fuller batch
+     */
+    private synchronized Batch takeBatch() throws InterruptedException {
+        while (pending.isEmpty()) {
+            wait();
+        }
+        if (pending.size() < batchSize && lingerMs > 0) {
+            wait(lingerMs);
+        }
+
+        Batch batch = new Batch();
+        Iterator<Map.Entry<Long, Book>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext() && batch.books.size() < batchSize) {
+            Book book = iterator.next().getValue();
+            iterator.remove();
+            batch.books.add(book);
+            batch.generations.add(generations.get(book.getId()));
+        }
+        return batch;
+    }
+
+    private void process(Batch batch) {
+        List<Book> toEmbed = new ArrayList<>();
+        List<Long> toEmbedGenerations = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < batch.books.size(); i++) {
+            Book book = batch.books.get(i);
+            if (!indexFromStoreIfCurrent(book, batch.generations.get(i))) {
+                toEmbed.add(book);
+                toEmbedGenerations.add(batch.generations.get(i));
+                texts.add(semanticSearchService.buildBookText(book));
+            }
+        }
+        if (texts.isEmpty()) {
+            return;
+        }
+
+        List<float[]> embeddings = semanticSearchService.generateEmbeddings(texts);
+        int failed = 0;
+        for (int i = 0; i < toEmbed.size(); i++) {
+            Book book = toEmbed.get(i);
+            synchronized (indexLock) {
+                if (isCurrent(book, toEmbedGenerations.get(i))
+                        && !semanticSearchService.indexEmbedding(book, texts.get(i), embeddings.get(i))) {
+                    failed++;
+                }
+            }
+        }
+        if (failed > 0) {
+            logger.warn("No embedding returned for {} of {} books; they will be retried by the next sweep", failed, texts.size());
+        }
+    }
+
+    /**
+     * Index a book from its stored embedding if it is still at the queued generation
+     *
+     * @return False if the book is current but has no stored embedding of its text
+     */
+    private boolean indexFromStoreIfCurrent(Book book, Long generation) {
+        synchronized (indexLock) {
+            return !isCurrent(book, generation) || semanticSearchService.indexFromStore(book);
+        }
+    }
+
+    private boolean isCurrent(Book book, Long generation) {
+        return generation != null && generation.equals(generations.get(book.getId()));
+    }
+
+    /**
+     * Books taken from the queue together with the generation each was queued at
+     */
+    private static final class Batch {
+        private final List<Book> books = new ArrayList<>();
+        private final List<Long> generations = new ArrayList<>();
+    }
+}
@@ -0,0 +1,231 @@
+package com.library.service;
+
+import com.library.model.Book;
+import com.library.payload.response.BookResponse;
+import com.library.payload.response.HybridSearchResponse;
+import com.library.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Service
+public class HybridSearchService {
+
+    public static final String LEXICAL = "lexical";
+    public static final String SEMANTIC = "semantic";
+
+    @Autowired
+    private NLPSearchService nlpSearchService;
+
+    @Autowired
+    private SemanticSearchService semanticSearchService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    @Qualifier("searchExecutor")
+    private ThreadPoolTaskExecutor searchExecutor;
+
+    // Counts from the start of the search
+    @Value("${search.hybrid.semantic-deadline-ms:400}")
+    private long semanticDeadlineMs;
+
+    // Semantic calls running at once, including ones that overran their deadline
+    @Value("${search.hybrid.semantic-max-in-flight:16}")
+    private int semanticMaxInFlight;
+
+    // Results taken from each stage before fusion
+    @Value("${search.hybrid.candidates:50}")
+    private int candidates;
+
+    // Reciprocal rank fusion constant; larger values flatten the advantage of top ranks
+    @Value("${search.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    // After this many consecutive semantic failures the stage is skipped for the cooldown
+    @Value("${search.hybrid.semantic-failure-threshold:3}")
+    private int semanticFailureThreshold;
+
+    @Value("${search.hybrid.semantic-cooldown-ms:30000}")
+    private long semanticCooldownMs;
+
+    private final AtomicInteger semanticFailures = new AtomicInteger();
+    private volatile long semanticRetryAt;
+    private Semaphore semanticPermits;
+
+    @PostConstruct
+    public void init() {
+        semanticPermits = new Semaphore(semanticMaxInFlight);
+    }
+
+    /**
+     * Search the catalog with the lexical index and the vector index at once, fusing their
+     * rankings with reciprocal rank fusion.
+     *
+     * The semantic stage runs on the search executor with a deadline while the in-memory
+     * lexical stage runs on the calling thread, so a slow embedding service can never starve
+     * the lexical stage of a worker. A stage that fails or misses its deadline is left out
+     * and the response is marked degraded; a semantic call that overruns keeps running in
+     * the background and fills the query embedding cache. Those calls hold a permit until
+     * they finish, and a search finding every permit taken counts it as a semantic failure.
+     * After repeated semantic failures the semantic stage is skipped for a cooldown period,
+     * so searches are answered by the lexical index alone at its own latency.
+     *
+     * @param query The natural language query
+     * @param limit The maximum number of results to return
+     * @return The fused results with the stages that contributed to them
+     */
+    public HybridSearchResponse search(String query, int limit) {
+        if (query == null || query.trim().isEmpty() || limit <= 0) {
+            return new HybridSearchResponse(Collections.emptyList(), Collections.emptyList(), false);
+        }
+
+        long start = System.nanoTime();
+        int depth = Math.max(candidates, limit);
+        CompletableFuture<List<Long>> semantic = isSemanticAvailable() ? submitSemantic(query, depth) : null;
+
+        Map<String, List<Long>> rankings = new LinkedHashMap<>();
+        boolean degraded = false;
+
+        try {
+            rankings.put(LEXICAL, nlpSearchService.rankBooks(query, depth));
+        } catch (RuntimeException e) {
+            System.out.println("Hybrid search " + LEXICAL + " stage failed: " + e.getMessage());
+            degraded = true;
+        }
+
+        if (semantic != null) {
+            List<Long> semanticIds = awaitSemantic(semantic, start);
+            if (semanticIds != null) {
+                rankings.put(SEMANTIC, semanticIds);
+            } else {
+                degraded = true;
+            }
+        } else {
+            degraded = true;
+        }
+
+        List<BookResponse> books = loadRanked(fuse(rankings.values(), limit)).stream()
+                .map(BookResponse::new)
+                .collect(Collectors.toList());
+        return new HybridSearchResponse(books, new ArrayList<>(rankings.keySet()), degraded);
+    }
+
+    /**
+     * Fuse rankings by summing 1 / (k + rank) for every ranking a book appears in
+     *
+     * @param rankings The rankings, best first
+     * @param limit The maximum number of results to return
+     * @return The fused ranking of book IDs
+     */
+    private List<Long> fuse(Collection<List<Long>> rankings, int limit) {
+        // Insertion order breaks ties in favour of the earlier ranking
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (List<Long> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                scores.merge(ranking.get(rank), 1.0 / (rrfK + rank + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Start the semantic stage if a permit is free, releasing the permit when the call finishes
+     *
+     * @return The stage, failed at once if every permit is taken or the executor rejects it
+     */
+    private CompletableFuture<List<Long>> submitSemantic(String query, int depth) {
+        if (!semanticPermits.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException(semanticMaxInFlight + " semantic calls already in flight"));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return semanticSearchService.rankBooks(query, depth);
+                } finally {
+                    semanticPermits.release();
+                }
+            }, searchExecutor);
+        } catch (TaskRejectedException e) {
+            semanticPermits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Wait for the semantic stage until its deadline, recording the outcome for the
+     * failure count. A stage that rejected its arguments is not held against the
+     * embedding service, so requests with bad input cannot switch the stage off for others.
+     *
+     * @return The stage's ranking, or null if it failed or missed its deadline
+     */
+    private List<Long> awaitSemantic(CompletableFuture<List<Long>> stage, long start) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(semanticDeadlineMs) - (System.nanoTime() - start);
+        try {
+            List<Long> ranking = stage.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            recordSemanticOutcome(true);
+            return ranking;
+        } catch (TimeoutException e) {
+            System.out.println("Hybrid search " + SEMANTIC + " stage missed its " + semanticDeadlineMs + " ms deadline");
+            recordSemanticOutcome(false);
+        } catch (ExecutionException e) {
+            System.out.println("Hybrid search " + SEMANTIC + " stage failed: " + e.getCause().getMessage());
+            if (!(e.getCause() instanceof IllegalArgumentException)) {
+                recordSemanticOutcome(false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private boolean isSemanticAvailable() {
+        return System.currentTimeMillis() >= semanticRetryAt;
+    }
+
+    /**
+     * Track consecutive semantic failures, skipping the stage for the cooldown once they reach
+     * the threshold. The count is only reset by a success, so after the cooldown one more
+     * failure is enough to skip the stage again.
+     */
+    private void recordSemanticOutcome(boolean succeeded) {
+        if (succeeded) {
+            semanticFailures.set(0);
+        } else if (semanticFailures.incrementAndGet() >= semanticFailureThreshold) {
+            semanticRetryAt = System.currentTimeMillis() + semanticCooldownMs;
+            System.out.println("Skipping the semantic stage of hybrid search for " + semanticCooldownMs + " ms after "
+                    + semanticFailures.get() + " consecutive failures");
+        }
+    }
+
+    /**
+     * Load the books for a ranking, keeping its order
+     */
+    private List<Book> loadRanked(List<Long> rankedIds) {
+        Map<Long, Book> books = bookRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        return rankedIds.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,310 @@
+package com.library.service;
+
+import com.library.blockchain.Block;
+import com.library.blockchain.HashUtils;
+import com.library.blockchain.MerkleTree;
+import com.library.blockchain.SequentialMiner;
+import com.library.blockchain.Transaction;
+import com.library.model.Loan;
+import com.library.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Backfills the ledger with the loans that existed before it was introduced.
+ *
+ * Loans are read in ID order with keyset pagination, up to the highest loan ID when the
+ * backfill first started; later loans are recorded live. Each chunk is turned into signed
+ * transactions, grouped into blocks and Merkle-hashed on a pool of worker threads, while
+ * the calling thread seals the prepared blocks in chunk order with a sequential miner.
+ * Transaction IDs and timestamps are derived from the loan rows and Ed25519 signatures
+ * are deterministic, so the same history always yields the same blocks. Live events use
+ * the same IDs, and transactions already on the chain are skipped, so a loan recorded
+ * live or sealed before a crash is not recorded again. Progress is saved after every
+ * chunk so an interrupted backfill resumes where it stopped, and once it completes it is
+ * marked as done and never runs again.
+ */
+@Component
+public class LedgerBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerBackfill.class);
+    private static final String PROGRESS_FILE = "bootstrap-progress.properties";
+    private static final String LAST_LOAN_ID = "lastLoanId";
+    private static final String CUTOFF_LOAN_ID = "cutoffLoanId";
+    private static final String COMPLETED = "completed";
+
+    @Value("${blockchain.bootstrap.enabled:false}")
+    private boolean enabled;
+
+    @Value("${blockchain.bootstrap.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${blockchain.bootstrap.block-size:500}")
+    private int blockSize;
+
+    @Value("${blockchain.bootstrap.parallelism:0}")
+    private int parallelism; // Number of worker threads, 0 for one per processor
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    /**
+     * Start the backfill in the background once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::runAndStartSealing, "ledger-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runAndStartSealing() {
+        try {
+            long sealed = backfill();
+            logger.info("Ledger bootstrap sealed {} blocks", sealed);
+        } catch (Exception e) {
+            logger.error("Ledger bootstrap failed", e);
+        } finally {
+            blockchainService.completeBootstrap();
+        }
+    }
+
+    /**
+     * Backfill the loans after the last recorded progress, up to the cutoff
+     *
+     * @return The number of blocks sealed
+     */
+    public long backfill() throws InterruptedException, ExecutionException {
+        Progress progress = loadProgress();
+        if (progress.completed) {
+            logger.info("Ledger bootstrap already completed up to loan {}", progress.cutoffLoanId);
+            return 0;
+        }
+        if (progress.cutoffLoanId < 0) {
+            // Loans created from now on are recorded live
+            Long maxId = loanRepository.findMaxId();
+            progress.cutoffLoanId = maxId != null ? maxId : 0L;
+            saveProgress(progress);
+        }
+        long cutoffLoanId = progress.cutoffLoanId;
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ledger-bootstrap-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        SequentialMiner miner = new SequentialMiner();
+        long lastLoanId = progress.lastLoanId;
+        long blocks = 0;
+        long startTime = System.currentTimeMillis();
+
+        try {
+            // Keep a bounded number of chunks in flight so reading stays ahead of sealing
+            Deque<PreparedChunk> inFlight = new ArrayDeque<>();
+            boolean exhausted = false;
+            while (!exhausted || !inFlight.isEmpty()) {
+                while (!exhausted && inFlight.size() < threads * 2) {
+                    List<Loan> loans = loanRepository.findChunkBetween(lastLoanId, cutoffLoanId, PageRequest.of(0, chunkSize));
+                    if (loans.isEmpty()) {
+                        exhausted = true;
+                        break;
+                    }
+                    lastLoanId = loans.get(loans.size() - 1).getId();
+                    inFlight.add(new PreparedChunk(lastLoanId, workers.submit(() -> prepare(loans))));
+                }
+
+                PreparedChunk chunk = inFlight.poll();
+                if (chunk == null) {
+                    break;
+                }
+                for (PreparedBlock block : chunk.blocks.get()) {
+                    if (blockchainService.getBlockchain().sealBlock(block.transactions, block.merkleRoot,
+                            block.timestamp, miner) == null) {
+                        logger.info("Ledger bootstrap cancelled");
+                        return blocks;
+                    }
+                    blocks++;
+                }
+                progress.lastLoanId = chunk.lastLoanId;
+                saveProgress(progress);
+                logger.info("Ledger bootstrap reached loan {} ({} blocks, {} ms)", chunk.lastLoanId, blocks,
+                        System.currentTimeMillis() - startTime);
+            }
+            progress.completed = true;
+            saveProgress(progress);
+            return blocks;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Turn a chunk of loans into signed transactions grouped into hashed blocks
+     */
+    private List<PreparedBlock> prepare(List<Loan> loans) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (Loan loan : loans) {
+            addTransactions(loan, transactions);
+        }
+
+        List<PreparedBlock> blocks = new ArrayList<>();
+        // Transactions sealed before a crash, or recorded live, are already on the chain
+        transactions.removeIf(transaction -> blockchainService.getBlockchain().containsTransaction(transaction.getTransactionId()));
+
+        for (int from = 0; from < transactions.size(); from += blockSize) {
+            List<Transaction> blockTransactions = transactions.subList(from, Math.min(from + blockSize, transactions.size()));
+            List<byte[]> leaves = new ArrayList<>(blockTransactions.size());
+            LocalDateTime timestamp = LocalDateTime.MIN;
+            for (Transaction transaction : blockTransactions) {
+                leaves.add(transaction.calculateHashBytes());
+                if (transaction.getTimestamp().isAfter(timestamp)) {
+                    timestamp = transaction.getTimestamp();
+                }
+            }
+            String merkleRoot = HashUtils.toHex(new MerkleTree(leaves).getRoot());
+            blocks.add(new PreparedBlock(new ArrayList<>(blockTransactions), merkleRoot, timestamp));
+        }
+        return blocks;
+    }
+
+    /**
+     * Add the transactions that the loan's current row implies happened.
+     * Pending and rejected loans were never issued and produce none.
+     */
+    private void addTransactions(Loan loan, List<Transaction> transactions) {
+        if (loan.getLoanDate() == null || "PENDING".equalsIgnoreCase(loan.getStatus())
+                || "REJECTED".equalsIgnoreCase(loan.getStatus())) {
+            return;
+        }
+        transactions.add(create(loan, LedgerEvent.loan(loan), loan.getLoanDate()));
+        if (loan.getReturnDate() != null) {
+            if (loan.getFineAmount() != null && loan.getFineAmount() > 0) {
+                transactions.add(create(loan, LedgerEvent.fineAssessed(loan, loan.getFineAmount()), loan.getReturnDate()));
+            }
+            transactions.add(create(loan, LedgerEvent.loanReturn(loan), loan.getReturnDate()));
+        }
+    }
+
+    private Transaction create(Loan loan, LedgerEvent event, LocalDate date) {
+        Transaction transaction = new Transaction(event.getType(), event.getUserId(), event.getUsername(),
+                event.getBookId(), event.getBookTitle(), event.getDetails());
+        transaction.setAmount(event.getAmount());
+        transaction.setTransactionId(event.getTransactionId());
+        transaction.setTimestamp(date.atStartOfDay());
+        blockchainService.sign(transaction);
+        return transaction;
+    }
+
+    private Progress loadProgress() {
+        Progress progress = new Progress();
+        Path file = progressFile();
+        if (file == null || !Files.exists(file)) {
+            return progress;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read bootstrap progress " + file, e);
+        }
+        progress.lastLoanId = Long.parseLong(properties.getProperty(LAST_LOAN_ID, "0"));
+        progress.cutoffLoanId = Long.parseLong(properties.getProperty(CUTOFF_LOAN_ID, "-1"));
+        progress.completed = Boolean.parseBoolean(properties.getProperty(COMPLETED, "false"));
+        return progress;
+    }
+
+    private void saveProgress(Progress progress) {
+        Path file = progressFile();
+        if (file == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty(LAST_LOAN_ID, String.valueOf(progress.lastLoanId));
+        properties.setProperty(CUTOFF_LOAN_ID, String.valueOf(progress.cutoffLoanId));
+        properties.setProperty(COMPLETED, String.valueOf(progress.completed));
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "Ledger bootstrap progress");
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write bootstrap progress " + file, e);
+        }
+    }
+
+    private Path progressFile() {
+        Path directory = blockchainService.getStorageDirectory();
+        return directory != null ? directory.resolve(PROGRESS_FILE) : null;
+    }
+
+    /**
+     * How far the backfill has got: the last loan sealed, the highest loan it covers
+     * (-1 until it first starts) and whether it has finished
+     */
+    private static final class Progress {
+        private long lastLoanId;
+        private long cutoffLoanId = -1;
+        private boolean completed;
+    }
+
+    /**
+     * The blocks prepared from one chunk of loans
+     */
+    private static final class PreparedChunk {
+        private final long lastLoanId;
+        private final Future<List<PreparedBlock>> blocks;
+
+        PreparedChunk(long lastLoanId, Future<List<PreparedBlock>> blocks) {
+            this.lastLoanId = lastLoanId;
+            this.blocks = blocks;
+        }
+    }
+
+    /**
+     * Signed transactions and their Merkle root, ready to be sealed
+     */
+    private static final class PreparedBlock {
+        private final List<Transaction> transactions;
+        private final String merkleRoot;
+        private final LocalDateTime timestamp;
+
+        PreparedBlock(List<Transaction> transactions, String merkleRoot, LocalDateTime timestamp) {
+            this.transactions = transactions;
+            this.merkleRoot = merkleRoot;
+            this.timestamp = timestamp;
+        }
+    }
+}
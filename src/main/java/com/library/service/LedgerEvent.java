@@ -0,0 +1,172 @@
+package com.library.service;
+
+import com.library.blockchain.LedgerState;
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.User;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Application event asking for a transaction to be recorded in the blockchain.
+ *
+ * The loan details are copied when the event is created so that the ledger worker never
+ * touches the JPA entities after the publishing transaction has committed. Events that
+ * happen at most once per loan (issue, fine and return) get a transaction ID derived
+ * from the loan, the same one the historical backfill uses, so the chain never holds
+ * both a live and a backfilled copy of them.
+ */
+public class LedgerEvent {
+    private static final Set<String> ONCE_PER_LOAN = Set.of("LOAN", "RETURN", LedgerState.FINE_ASSESSED);
+
+    private final String transactionId;
+    private final String type;
+    private final Long userId;
+    private final String username;
+    private final Long bookId;
+    private final String bookTitle;
+    private final String details;
+    private final BigDecimal amount;
+
+    private LedgerEvent(String type, Loan loan, String details) {
+        this(type, loan, details, null);
+    }
+
+    private LedgerEvent(String type, Loan loan, String details, BigDecimal amount) {
+        User user = loan.getUser();
+        Book book = loan.getBook();
+        this.transactionId = ONCE_PER_LOAN.contains(type) && loan.getId() != null
+                ? transactionId(loan.getId(), type)
+                : null;
+        this.type = type;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.bookId = book.getId();
+        this.bookTitle = book.getTitle();
+        this.details = details;
+        this.amount = amount;
+    }
+
+    /**
+     * Create an event recording an approved loan
+     *
+     * @param loan The loan
+     * @return The event
+     */
+    public static LedgerEvent loan(Loan loan) {
+        return new LedgerEvent("LOAN", loan,
+                "Book loaned on " + loan.getLoanDate() + " with due date " + loan.getDueDate());
+    }
+
+    /**
+     * Create an event recording a returned loan
+     *
+     * @param loan The loan
+     * @return The event
+     */
+    public static LedgerEvent loanReturn(Loan loan) {
+        return new LedgerEvent("RETURN", loan, "Book returned on " + loan.getReturnDate());
+    }
+
+    /**
+     * Create an event recording a fine charged for an overdue return
+     *
+     * @param loan The loan the fine was charged for
+     * @param amount The amount of the fine
+     * @return The event
+     */
+    public static LedgerEvent fineAssessed(Loan loan, double amount) {
+        BigDecimal fine = toMoney(amount);
+        return new LedgerEvent(LedgerState.FINE_ASSESSED, loan,
+                "Fine of $" + fine.toPlainString() + " assessed for overdue book", fine);
+    }
+
+    /**
+     * Create an event recording a fine payment
+     *
+     * @param loan The loan the fine was charged for
+     * @param amount The amount of the fine
+     * @return The event
+     */
+    public static LedgerEvent finePayment(Loan loan, double amount) {
+        BigDecimal payment = toMoney(amount);
+        return new LedgerEvent(LedgerState.FINE_PAYMENT, loan,
+                "Fine payment of $" + payment.toPlainString() + " for overdue book", payment);
+    }
+
+    /**
+     * Create an event recording a change of due date
+     *
+     * @param loan The loan being modified
+     * @param oldDueDate The original due date
+     * @param newDueDate The new due date
+     * @return The event
+     */
+    public static LedgerEvent loanModification(Loan loan, LocalDate oldDueDate, LocalDate newDueDate) {
+        return new LedgerEvent("LOAN_MODIFICATION", loan,
+                "Loan due date modified from " + oldDueDate + " to " + newDueDate);
+    }
+
+    /**
+     * Derive the transaction ID of an event that happens at most once per loan
+     *
+     * @param loanId The ID of the loan
+     * @param type The type of the event
+     * @return The transaction ID
+     */
+    public static String transactionId(Long loanId, String type) {
+        String key = "loan:" + loanId + ":" + type;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Convert an amount to cents, so it is recorded exactly rather than as a double
+     */
+    private static BigDecimal toMoney(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Getters
+
+    /**
+     * Get the transaction ID to record the event under
+     *
+     * @return The ID derived from the loan, or null if the event gets a random ID
+     */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+}
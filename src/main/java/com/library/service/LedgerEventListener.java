@@ -0,0 +1,34 @@
+package com.library.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Records ledger events in the blockchain once the transaction that published them has
+ * committed. Events from rolled-back transactions are dropped, and the recording runs on
+ * the single-threaded ledger executor so that it stays in publication order and off the
+ * request thread.
+ */
+@Component
+public class LedgerEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEventListener.class);
+
+    @Autowired
+    private BlockchainService blockchainService;
+
+    @Async("ledgerExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLedgerEvent(LedgerEvent event) {
+        try {
+            blockchainService.record(event);
+        } catch (Exception e) {
+            logger.error("Failed to record {} transaction for user {} in the ledger", event.getType(), event.getUserId(), e);
+        }
+    }
+}
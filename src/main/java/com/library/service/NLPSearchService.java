@@ -2,10 +2,23 @@ package com.library.service;
 
 import com.library.model.Book;
 import com.library.repository.BookRepository;
+import com.library.repository.LoanRepository;
+import com.library.search.FuzzyTermIndex;
+import com.library.search.Gazetteer;
+import com.library.search.InvertedIndex;
+import com.library.search.SuggestionTrie;
+import com.library.search.TextAnalyzer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -15,16 +28,218 @@ public class NLPSearchService {
     @Autowired
     private BookRepository bookRepository;
 
-    // Common English stop words
-    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
-            "a", "an", "the", "and", "or", "but", "about", "above", "after", "along", "amid", "among",
-            "as", "at", "by", "for", "from", "in", "into", "like", "minus", "near", "of", "off", "on",
-            "onto", "out", "over", "past", "per", "plus", "since", "till", "to", "under", "until", "up",
-            "via", "vs", "with", "that", "can", "cannot", "could", "may", "might", "must",
-            "need", "ought", "shall", "should", "will", "would", "have", "had", "has", "having", "be",
-            "is", "am", "are", "was", "were", "being", "been", "get", "gets", "got", "gotten",
-            "getting", "i", "you", "he", "she", "it", "we", "they", "who", "which", "this", "that"
-    ));
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    // Indexed fields and their weights
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int CATEGORY = 2;
+    private static final int DESCRIPTION = 3;
+    private static final double[] FIELD_WEIGHTS = {5.0, 4.0, 3.0, 1.0};
+
+    // Inverted index over the analyzed book fields
+    private final InvertedIndex index = new InvertedIndex(4);
+
+    // Title and author terms, for correcting misspelled query terms
+    private final FuzzyTermIndex fuzzyTerms = new FuzzyTermIndex();
+
+    // Corrections tried per misspelled query term
+    private static final int MAX_FUZZY_EXPANSIONS = 3;
+
+    // Lowercased fields of each indexed book, for matching extracted entities
+    private final Map<Long, IndexedBook> indexedBooks = new ConcurrentHashMap<>();
+
+    // Catalog authors, titles and categories, found in a query in one pass
+    private volatile Gazetteer gazetteer = new Gazetteer.Builder().build();
+
+    // Number of books naming each gazetteer entry, keyed by "type:phrase"
+    private final Map<String, Integer> gazetteerEntries = new HashMap<>();
+
+    // Set while a rebuild of the gazetteer is queued, so bursts of changes share one rebuild
+    private final AtomicBoolean gazetteerRefreshPending = new AtomicBoolean();
+
+    // Phrases in double quotes are taken as (parts of) titles
+    private static final Pattern QUOTED_PHRASE = Pattern.compile("\"([^\"]*)\"");
+
+    // Titles, authors and categories by word prefix, weighted by how often their books are borrowed
+    private final SuggestionTrie suggestionTrie = new SuggestionTrie();
+
+    // The suggestions each book contributes to the trie, so they can be withdrawn
+    private final Map<Long, BookSuggestions> bookSuggestions = new HashMap<>();
+
+    // Suggestions are keyed from each of the first few words of a title, author or category
+    private static final int MAX_SUGGESTION_WORDS = 8;
+
+    /**
+     * Build the search index from the catalog
+     */
+    @PostConstruct
+    public void buildIndex() {
+        long startTime = System.currentTimeMillis();
+        Map<Long, Long> loanCounts = new HashMap<>();
+        for (Object[] row : loanRepository.countLoansGroupedByBook()) {
+            loanCounts.put((Long) row[0], (Long) row[1]);
+        }
+        for (Book book : bookRepository.findAll()) {
+            indexBook(book);
+            updateSuggestions(book, 1 + loanCounts.getOrDefault(book.getId(), 0L));
+        }
+        rebuildGazetteer();
+        System.out.println("Indexed " + index.size() + " books with " + index.termCount() + " terms, "
+                + fuzzyTerms.size() + " title and author terms, " + gazetteer.size() + " catalog entities and "
+                + suggestionTrie.size() + " suggestion keys in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * Keep the index in step with the catalog once a change has committed.
+     * Changes made outside a transaction are applied immediately.
+     *
+     * @param event The catalog change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogEvent(CatalogEvent event) {
+        if (event.getType() == CatalogEvent.Type.DELETED) {
+            index.remove(event.getBookId());
+            fuzzyTerms.remove(event.getBookId());
+            if (updateGazetteerEntries(indexedBooks.remove(event.getBookId()), null)) {
+                scheduleGazetteerRefresh();
+            }
+            updateSuggestions(event.getBook(), 0);
+        } else {
+            if (indexBook(event.getBook())) {
+                scheduleGazetteerRefresh();
+            }
+            updateSuggestions(event.getBook(), -1);
+        }
+    }
+
+    /**
+     * Count an approved loan towards the popularity of the book's suggestions
+     *
+     * @param event The ledger event published for the loan
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLedgerEvent(LedgerEvent event) {
+        if ("LOAN".equals(event.getType()) && event.getBookId() != null) {
+            incrementPopularity(event.getBookId());
+        }
+    }
+
+    /**
+     * Index a book's fields and record its catalog entities
+     *
+     * @return True if the book named an entity no other book names, or stopped naming one
+     */
+    private boolean indexBook(Book book) {
+        List<List<String>> fields = new ArrayList<>(4);
+        fields.add(TITLE, TextAnalyzer.analyze(book.getTitle()));
+        fields.add(AUTHOR, TextAnalyzer.analyze(book.getAuthor()));
+        fields.add(CATEGORY, TextAnalyzer.analyze(book.getCategory()));
+        fields.add(DESCRIPTION, TextAnalyzer.analyze(book.getDescription()));
+        IndexedBook indexed = new IndexedBook(book);
+        IndexedBook previous = indexedBooks.put(book.getId(), indexed);
+        index.put(book.getId(), fields);
+
+        List<String> titleAndAuthor = new ArrayList<>(fields.get(TITLE));
+        titleAndAuthor.addAll(fields.get(AUTHOR));
+        fuzzyTerms.put(book.getId(), titleAndAuthor);
+        return updateGazetteerEntries(previous, indexed);
+    }
+
+    /**
+     * Move the gazetteer entry counts from a book's previous version to its current one
+     *
+     * @param removed The previous version, or null
+     * @param added The current version, or null if the book was deleted
+     * @return True if an entry was added to or dropped from the dictionary
+     */
+    private boolean updateGazetteerEntries(IndexedBook removed, IndexedBook added) {
+        boolean changed = false;
+        synchronized (gazetteerEntries) {
+            // Add before removing so that entries kept by an update never drop to zero
+            if (added != null) {
+                for (String entry : added.entities()) {
+                    changed |= gazetteerEntries.merge(entry, 1, Integer::sum) == 1;
+                }
+            }
+            if (removed != null) {
+                for (String entry : removed.entities()) {
+                    if (gazetteerEntries.merge(entry, -1, Integer::sum) == 0) {
+                        gazetteerEntries.remove(entry);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Rebuild the gazetteer in the background; queries use the previous one until it is ready
+     */
+    private void scheduleGazetteerRefresh() {
+        if (gazetteerRefreshPending.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                // Cleared first so that changes made during the rebuild queue another one
+                gazetteerRefreshPending.set(false);
+                rebuildGazetteer();
+            });
+        }
+    }
+
+    private void rebuildGazetteer() {
+        Gazetteer.Builder builder = new Gazetteer.Builder();
+        synchronized (gazetteerEntries) {
+            for (String entry : gazetteerEntries.keySet()) {
+                int separator = entry.indexOf(':');
+                builder.add(entry.substring(separator + 1), entry.substring(0, separator));
+            }
+        }
+        gazetteer = builder.build();
+    }
+
+    /**
+     * Replace the suggestions a book contributes to the trie
+     *
+     * @param book The book
+     * @param popularity The book's weight, 0 to remove its suggestions, or -1 to keep its current weight
+     */
+    private synchronized void updateSuggestions(Book book, long popularity) {
+        BookSuggestions previous = bookSuggestions.remove(book.getId());
+        if (previous != null) {
+            previous.addTo(suggestionTrie, -previous.popularity);
+            if (popularity < 0) {
+                popularity = previous.popularity;
+            }
+        }
+        if (popularity < 0) {
+            popularity = 1;
+        }
+        if (popularity == 0) {
+            return;
+        }
+
+        BookSuggestions current = new BookSuggestions(popularity);
+        current.addKeys(book.getTitle(), "\"" + book.getTitle() + "\"");
+        current.addKeys(book.getAuthor(), "by " + book.getAuthor());
+        current.addKeys(book.getCategory(), "category: " + book.getCategory());
+        current.addTo(suggestionTrie, popularity);
+        bookSuggestions.put(book.getId(), current);
+    }
+
+    private synchronized void incrementPopularity(Long bookId) {
+        BookSuggestions suggestions = bookSuggestions.get(bookId);
+        if (suggestions != null) {
+            suggestions.popularity++;
+            suggestions.addTo(suggestionTrie, 1);
+        }
+    }
 
     /**
      * Search for books using natural language processing techniques
@@ -34,84 +249,95 @@ public class NLPSearchService {
      * @return A list of books matching the query
      */
     public List<Book> searchBooks(String query, int limit) {
-        if (query == null || query.trim().isEmpty()) {
+        List<Long> rankedIds = rankBooks(query, limit);
+
+        // Load only the books being returned, in rank order
+        Map<Long, Book> books = bookRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        return rankedIds.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Rank books against a natural language query from the index alone, without loading them
+     *
+     * @param query The natural language query
+     * @param limit The maximum number of results to return
+     * @return The IDs of the matching books, best first
+     */
+    public List<Long> rankBooks(String query, int limit) {
+        if (query == null || query.trim().isEmpty() || limit <= 0) {
             return Collections.emptyList();
         }
 
         // Preprocess the query
-        List<String> queryTokens = preprocessText(query);
+        List<String> queryTokens = TextAnalyzer.analyze(query);
         
         // Extract potential entities (authors, titles, categories)
         Map<String, List<String>> entities = extractEntities(query);
         
-        // Get all books
-        List<Book> allBooks = bookRepository.findAll();
-        
-        // Score each book based on the query
-        Map<Book, Double> bookScores = new HashMap<>();
-        
-        for (Book book : allBooks) {
-            double score = calculateRelevanceScore(book, queryTokens, entities);
-            if (score > 0) {
-                bookScores.put(book, score);
+        // Add close title and author terms for query terms no book contains
+        List<String> queryTerms = new ArrayList<>(queryTokens);
+        List<Double> termBoosts = new ArrayList<>(Collections.nCopies(queryTokens.size(), 1.0));
+        for (String token : queryTokens) {
+            int maxDistance = maxEditDistance(token);
+            if (maxDistance == 0 || index.contains(token)) {
+                continue;
+            }
+            for (FuzzyTermIndex.Match match : fuzzyTerms.expand(token, maxDistance, MAX_FUZZY_EXPANSIONS)) {
+                queryTerms.add(match.getTerm());
+                termBoosts.add(1.0 / (1 + match.getDistance()));
             }
         }
-        
-        // Sort books by score and return top results
-        return bookScores.entrySet().stream()
-                .sorted(Map.Entry.<Book, Double>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-    }
 
-    /**
-     * Preprocess text by tokenizing, removing stop words, and stemming
-     *
-     * @param text The text to preprocess
-     * @return A list of preprocessed tokens
-     */
-    private List<String> preprocessText(String text) {
-        // Convert to lowercase
-        String lowercaseText = text.toLowerCase();
-        
-        // Remove punctuation
-        String noPunctuation = lowercaseText.replaceAll("[^a-zA-Z0-9\\s]", " ");
-        
-        // Tokenize
-        String[] tokens = noPunctuation.split("\\s+");
+        // Score the books that contain any query term
+        Map<Long, Double> bookScores = index.score(queryTerms,
+                termBoosts.stream().mapToDouble(Double::doubleValue).toArray(), FIELD_WEIGHTS);
+        for (Map.Entry<Long, Double> entry : bookScores.entrySet()) {
+            IndexedBook book = indexedBooks.get(entry.getKey());
+            if (book != null) {
+                entry.setValue(entry.getValue() + calculateEntityScore(book, entities));
+            }
+        }
         
-        // Remove stop words and apply simple stemming
-        return Arrays.stream(tokens)
-                .filter(token -> !token.isEmpty() && !STOP_WORDS.contains(token))
-                .map(this::simpleStemming)
-                .collect(Collectors.toList());
+        // Keep the top results in a bounded min-heap
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : bookScores.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue;
+            }
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Long> rankedIds = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            rankedIds.add(top.poll().getKey());
+        }
+        Collections.reverse(rankedIds);
+        return rankedIds;
     }
 
     /**
-     * Apply simple stemming to a word
-     *
-     * @param word The word to stem
-     * @return The stemmed word
+     * Get the number of typos tolerated in a query term: none for very short terms, where
+     * almost any edit yields another word, one up to five characters and two beyond
      */
-    private String simpleStemming(String word) {
-        // Very simple stemming rules
-        if (word.endsWith("ing")) {
-            return word.substring(0, word.length() - 3);
-        } else if (word.endsWith("ed")) {
-            return word.substring(0, word.length() - 2);
-        } else if (word.endsWith("s") && !word.endsWith("ss")) {
-            return word.substring(0, word.length() - 1);
-        } else {
-            return word;
+    private static int maxEditDistance(String term) {
+        if (term.length() < 3) {
+            return 0;
         }
+        return term.length() <= 5 ? 1 : 2;
     }
 
     /**
-     * Extract potential entities from the query
+     * Extract the catalog authors, titles and categories named in the query, plus quoted
+     * phrases as titles
      *
      * @param query The query to extract entities from
-     * @return A map of entity types to lists of potential entities
+     * @return A map of entity types to the normalized entities found
      */
     private Map<String, List<String>> extractEntities(String query) {
         Map<String, List<String>> entities = new HashMap<>();
@@ -119,29 +345,17 @@ public class NLPSearchService {
         entities.put("title", new ArrayList<>());
         entities.put("category", new ArrayList<>());
         
-        // Extract potential author names (capitalized words)
-        Pattern authorPattern = Pattern.compile("\\b[A-Z][a-z]+ [A-Z][a-z]+\\b");
-        java.util.regex.Matcher authorMatcher = authorPattern.matcher(query);
-        while (authorMatcher.find()) {
-            entities.get("author").add(authorMatcher.group().toLowerCase());
+        // Catalog entities, in one pass over the query
+        for (Gazetteer.Match match : gazetteer.find(query)) {
+            entities.get(match.getType()).add(match.getPhrase());
         }
         
-        // Extract potential book titles (phrases in quotes)
-        Pattern titlePattern = Pattern.compile("\"([^\"]*)\"");
-        java.util.regex.Matcher titleMatcher = titlePattern.matcher(query);
+        // Explicitly quoted titles, which may be only part of a title
+        java.util.regex.Matcher titleMatcher = QUOTED_PHRASE.matcher(query);
         while (titleMatcher.find()) {
-            entities.get("title").add(titleMatcher.group(1).toLowerCase());
-        }
-        
-        // Extract potential categories (common category keywords)
-        String[] commonCategories = {"fiction", "non-fiction", "science", "history", "biography", 
-                                    "fantasy", "romance", "thriller", "mystery", "horror", 
-                                    "poetry", "drama", "comedy", "adventure", "children"};
-        
-        String lowercaseQuery = query.toLowerCase();
-        for (String category : commonCategories) {
-            if (lowercaseQuery.contains(category)) {
-                entities.get("category").add(category);
+            String title = Gazetteer.normalize(titleMatcher.group(1));
+            if (!title.isEmpty()) {
+                entities.get("title").add(title);
             }
         }
         
@@ -149,64 +363,32 @@ public class NLPSearchService {
     }
 
     /**
-     * Calculate the relevance score of a book for a query
+     * Calculate the score a book gets for matching the entities extracted from the query
      *
      * @param book The book to score
-     * @param queryTokens The preprocessed query tokens
      * @param entities The extracted entities from the query
-     * @return A relevance score
+     * @return The entity score
      */
-    private double calculateRelevanceScore(Book book, List<String> queryTokens, Map<String, List<String>> entities) {
+    private double calculateEntityScore(IndexedBook book, Map<String, List<String>> entities) {
         double score = 0.0;
         
-        // Preprocess book fields
-        List<String> titleTokens = book.getTitle() != null ? preprocessText(book.getTitle()) : Collections.emptyList();
-        List<String> authorTokens = book.getAuthor() != null ? preprocessText(book.getAuthor()) : Collections.emptyList();
-        List<String> descriptionTokens = book.getDescription() != null ? preprocessText(book.getDescription()) : Collections.emptyList();
-        List<String> categoryTokens = book.getCategory() != null ? preprocessText(book.getCategory()) : Collections.emptyList();
-        
-        // Score based on token matches
-        for (String token : queryTokens) {
-            // Title matches (highest weight)
-            if (titleTokens.contains(token)) {
-                score += 5.0;
-            }
-            
-            // Author matches
-            if (authorTokens.contains(token)) {
-                score += 4.0;
-            }
-            
-            // Category matches
-            if (categoryTokens.contains(token)) {
-                score += 3.0;
-            }
-            
-            // Description matches
-            if (descriptionTokens.contains(token)) {
-                score += 1.0;
-            }
-        }
-        
-        // Score based on entity matches
-        
-        // Author entity matches
+        // Author entity matches, by full name or surname
         for (String author : entities.get("author")) {
-            if (book.getAuthor() != null && book.getAuthor().toLowerCase().contains(author)) {
+            if (book.author.equals(author) || book.author.endsWith(" " + author)) {
                 score += 10.0;
             }
         }
         
-        // Title entity matches
+        // Title entity matches, on whole words
         for (String title : entities.get("title")) {
-            if (book.getTitle() != null && book.getTitle().toLowerCase().contains(title)) {
+            if ((" " + book.title + " ").contains(" " + title + " ")) {
                 score += 10.0;
             }
         }
         
         // Category entity matches
         for (String category : entities.get("category")) {
-            if (book.getCategory() != null && book.getCategory().toLowerCase().contains(category)) {
+            if (book.category.equals(category)) {
                 score += 8.0;
             }
         }
@@ -215,7 +397,9 @@ public class NLPSearchService {
     }
 
     /**
-     * Get search suggestions based on a partial query
+     * Get search suggestions based on a partial query.
+     * Titles, authors and categories with a word starting with the query are returned,
+     * most borrowed first.
      *
      * @param partialQuery The partial query
      * @param limit The maximum number of suggestions to return
@@ -225,38 +409,89 @@ public class NLPSearchService {
         if (partialQuery == null || partialQuery.trim().isEmpty()) {
             return Collections.emptyList();
         }
-        
-        String lowercaseQuery = partialQuery.toLowerCase().trim();
-        List<String> suggestions = new ArrayList<>();
-        
-        // Get all books
-        List<Book> allBooks = bookRepository.findAll();
-        
-        // Add title suggestions
-        for (Book book : allBooks) {
-            if (book.getTitle() != null && book.getTitle().toLowerCase().contains(lowercaseQuery)) {
-                suggestions.add("\"" + book.getTitle() + "\"");
+        return suggestionTrie.topK(normalizeSuggestionKey(partialQuery), limit);
+    }
+
+    /**
+     * Lowercase text and collapse its whitespace so keys and prefixes compare directly
+     */
+    private static String normalizeSuggestionKey(String text) {
+        return text.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Normalized fields of an indexed book, empty when missing
+     */
+    private static final class IndexedBook {
+        // Shorter titles and surnames are too likely to be ordinary query words
+        private static final int MIN_ENTITY_LENGTH = 4;
+
+        private final String title;
+        private final String author;
+        private final String category;
+
+        IndexedBook(Book book) {
+            this.title = Gazetteer.normalize(book.getTitle());
+            this.author = Gazetteer.normalize(book.getAuthor());
+            this.category = Gazetteer.normalize(book.getCategory());
+        }
+
+        /**
+         * Get the gazetteer entries the book contributes, as "type:phrase"
+         */
+        Set<String> entities() {
+            Set<String> entities = new LinkedHashSet<>();
+            if (!author.isEmpty()) {
+                entities.add("author:" + author);
+                String surname = author.substring(author.lastIndexOf(' ') + 1);
+                if (surname.length() >= MIN_ENTITY_LENGTH) {
+                    entities.add("author:" + surname);
+                }
+            }
+            if (title.length() >= MIN_ENTITY_LENGTH) {
+                entities.add("title:" + title);
+            }
+            if (!category.isEmpty()) {
+                entities.add("category:" + category);
             }
+            return entities;
         }
-        
-        // Add author suggestions
-        for (Book book : allBooks) {
-            if (book.getAuthor() != null && book.getAuthor().toLowerCase().contains(lowercaseQuery)) {
-                suggestions.add("by " + book.getAuthor());
+    }
+
+    /**
+     * The (key, suggestion) pairs a book adds to the suggestion trie and their weight
+     */
+    private static final class BookSuggestions {
+        private final List<String[]> entries = new ArrayList<>();
+        private long popularity;
+
+        BookSuggestions(long popularity) {
+            this.popularity = popularity;
+        }
+
+        /**
+         * Key the suggestion by its text from each of its first few word starts
+         */
+        void addKeys(String text, String suggestion) {
+            if (text == null || text.trim().isEmpty()) {
+                return;
+            }
+            String key = normalizeSuggestionKey(text);
+            int words = 0;
+            for (int start = 0; start < key.length() && words < MAX_SUGGESTION_WORDS; words++) {
+                entries.add(new String[] {key.substring(start), suggestion});
+                int space = key.indexOf(' ', start);
+                if (space < 0) {
+                    break;
+                }
+                start = space + 1;
             }
         }
-        
-        // Add category suggestions
-        for (Book book : allBooks) {
-            if (book.getCategory() != null && book.getCategory().toLowerCase().contains(lowercaseQuery)) {
-                suggestions.add("category: " + book.getCategory());
+
+        void addTo(SuggestionTrie trie, long delta) {
+            for (String[] entry : entries) {
+                trie.add(entry[0], entry[1], delta);
             }
         }
-        
-        // Remove duplicates and limit results
-        return suggestions.stream()
-                .distinct()
-                .limit(limit)
-                .collect(Collectors.toList());
     }
 }
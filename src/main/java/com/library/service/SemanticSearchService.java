@@ -7,6 +7,12 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.library.config.GeminiConfig;
 import com.library.model.Book;
 import com.library.repository.BookRepository;
+import com.library.search.EmbeddingStore;
+import com.library.search.HnswIndex;
+import com.library.search.QueryEmbeddingCache;
+import com.library.search.VectorMath;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
@@ -15,6 +21,7 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -33,13 +40,120 @@ public class SemanticSearchService {
     @Value("${gemini.embedding.url}")
     private String embeddingApiUrl;
 
+    @Value("${gemini.embedding.batch-url:https://generativelanguage.googleapis.com/v1beta/models/text-embedding-004:batchEmbedContents}")
+    private String batchEmbeddingApiUrl;
+
+    @Value("${gemini.embedding.model:models/text-embedding-004}")
+    private String embeddingModel;
+
     @Value("${gemini.embedding.dimension:768}")
     private int embeddingDimension;
 
+    @Value("${semantic.embeddings.directory:data/embeddings}")
+    private String embeddingsDirectory;
+
+    @Value("${semantic.index.max-links:16}")
+    private int indexMaxLinks;
+
+    @Value("${semantic.index.ef-construction:200}")
+    private int indexEfConstruction;
+
+    @Value("${semantic.index.ef-search:64}")
+    private int indexEfSearch;
+
+    @Value("${semantic.index.quantized:true}")
+    private boolean indexQuantized;
+
+    // Below this many books an exact scan is cheap enough and avoids approximation
+    @Value("${semantic.index.exact-search-threshold:2000}")
+    private int exactSearchThreshold;
+
+    @Value("${semantic.query-cache.max-entries:10000}")
+    private int queryCacheMaxEntries;
+
+    @Value("${semantic.query-cache.ttl-minutes:60}")
+    private long queryCacheTtlMinutes;
+
+    // Candidates per result kept by the int8 pass of an exact scan for float re-ranking
+    private static final int RERANK_FACTOR = 4;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // Cache for book embeddings to avoid recalculating them
-    private final Map<Long, float[]> bookEmbeddingCache = new HashMap<>();
+    // Book embeddings persisted off-heap, versioned by the hash of the text they were computed from
+    private EmbeddingStore bookEmbeddingStore;
+
+    // Approximate nearest-neighbour index over the book embeddings, filled by the embedding pipeline
+    private HnswIndex bookIndex;
+
+    // Embeddings of recent queries; empty embeddings from failed calls are not cached
+    private QueryEmbeddingCache queryEmbeddingCache;
+
+    @PostConstruct
+    public void init() {
+        bookEmbeddingStore = new EmbeddingStore(Paths.get(embeddingsDirectory, "book-embeddings.dat"), embeddingDimension);
+        bookIndex = new HnswIndex(embeddingDimension, indexMaxLinks, indexEfConstruction, indexEfSearch,
+                indexQuantized, 42L);
+        queryEmbeddingCache = new QueryEmbeddingCache(queryCacheMaxEntries, queryCacheTtlMinutes * 60_000L,
+                embedding -> !isZero(embedding));
+        System.out.println("Opened embedding store with " + bookEmbeddingStore.size() + " book embeddings, scoring with "
+                + VectorMath.kernelName());
+    }
+
+    /**
+     * Flush the embedding store on shutdown
+     */
+    @PreDestroy
+    public void shutdown() {
+        bookEmbeddingStore.close();
+    }
+
+    /**
+     * Index a book from its stored embedding if that was computed from the book's current text
+     *
+     * @param book The book
+     * @return True if the book was indexed, false if it needs to be embedded
+     */
+    public boolean indexFromStore(Book book) {
+        float[] embedding = bookEmbeddingStore.get(book.getId(), EmbeddingStore.contentHash(buildBookText(book)));
+        return embedding != null && bookIndex.put(book.getId(), embedding);
+    }
+
+    /**
+     * Store and index a freshly computed embedding for a book
+     *
+     * @param book The book
+     * @param text The text the embedding was computed from
+     * @param embedding The embedding; an empty (all-zero) result of a failed call is ignored
+     * @return True if the book was indexed
+     */
+    public boolean indexEmbedding(Book book, String text, float[] embedding) {
+        if (isZero(embedding)) {
+            return false;
+        }
+        bookEmbeddingStore.put(book.getId(), EmbeddingStore.contentHash(text), embedding);
+        return bookIndex.put(book.getId(), embedding);
+    }
+
+    /**
+     * Check whether a book is indexed with an embedding of its current text
+     *
+     * @param book The book
+     * @return True if the book's embedding is present and up to date
+     */
+    public boolean isIndexedCurrent(Book book) {
+        return bookIndex.contains(book.getId())
+                && bookEmbeddingStore.contains(book.getId(), EmbeddingStore.contentHash(buildBookText(book)));
+    }
+
+    /**
+     * Remove a book from the index and the embedding store
+     *
+     * @param bookId The ID of the book
+     */
+    public void removeBook(Long bookId) {
+        bookIndex.remove(bookId);
+        bookEmbeddingStore.remove(bookId);
+    }
 
     /**
      * Generate embeddings for a text using Gemini's embedding model
@@ -85,47 +199,60 @@ public class SemanticSearchService {
     }
 
     /**
-     * Calculate the cosine similarity between two embedding vectors
+     * Generate embeddings for several texts with one call to the batch embedding endpoint
      *
-     * @param embedding1 The first embedding vector
-     * @param embedding2 The second embedding vector
-     * @return The cosine similarity (between -1 and 1)
+     * @param texts The texts to generate embeddings for
+     * @return One embedding per text, in order; empty (all-zero) for texts that failed
      */
-    private double cosineSimilarity(float[] embedding1, float[] embedding2) {
-        if (embedding1.length != embedding2.length) {
-            throw new IllegalArgumentException("Embeddings must have the same dimension");
-        }
+    public List<float[]> generateEmbeddings(List<String> texts) {
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        try {
+            // Prepare request body with one embedding request per text
+            ObjectNode requestBody = objectMapper.createObjectNode();
+            ArrayNode requests = requestBody.putArray("requests");
+            for (String text : texts) {
+                ObjectNode request = requests.addObject();
+                request.put("model", embeddingModel);
+                request.putObject("content").putArray("parts").addObject().put("text", text);
+            }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+            // Set up headers
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("x-goog-api-key", geminiConfig.getApiKey());
 
-        for (int i = 0; i < embedding1.length; i++) {
-            dotProduct += embedding1[i] * embedding2[i];
-            norm1 += embedding1[i] * embedding1[i];
-            norm2 += embedding2[i] * embedding2[i];
-        }
+            // Make API call
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
+            String response = geminiRestTemplate.postForObject(batchEmbeddingApiUrl, entity, String.class);
 
-        if (norm1 <= 0.0 || norm2 <= 0.0) {
-            return 0.0;
+            // Parse response
+            JsonNode results = objectMapper.readTree(response).path("embeddings");
+            for (int i = 0; i < texts.size(); i++) {
+                JsonNode values = results.path(i).path("values");
+                float[] embedding = new float[embeddingDimension];
+                if (values.isArray() && values.size() == embeddingDimension) {
+                    for (int j = 0; j < embeddingDimension; j++) {
+                        embedding[j] = (float) values.get(j).asDouble();
+                    }
+                }
+                embeddings.add(embedding);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            while (embeddings.size() < texts.size()) {
+                embeddings.add(new float[embeddingDimension]); // Return empty embeddings if failed
+            }
         }
-
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return embeddings;
     }
 
     /**
-     * Generate or retrieve embeddings for a book
+     * Create the text a book's embedding is computed from
      *
-     * @param book The book to generate embeddings for
-     * @return The book's embedding vector
+     * @param book The book
+     * @return A rich text representation of the book
      */
-    private float[] getBookEmbedding(Book book) {
-        // Check if we have cached embeddings for this book
-        if (bookEmbeddingCache.containsKey(book.getId())) {
-            return bookEmbeddingCache.get(book.getId());
-        }
-
-        // Create a rich text representation of the book
+    public String buildBookText(Book book) {
         StringBuilder bookText = new StringBuilder();
         bookText.append("Title: ").append(book.getTitle()).append(". ");
         bookText.append("Author: ").append(book.getAuthor()).append(". ");
@@ -146,46 +273,59 @@ public class SemanticSearchService {
             bookText.append("Language: ").append(book.getLanguage()).append(". ");
         }
 
-        // Generate embeddings
-        float[] embedding = generateEmbeddings(bookText.toString());
-
-        // Cache the embeddings
-        bookEmbeddingCache.put(book.getId(), embedding);
+        return bookText.toString();
+    }
 
-        return embedding;
+    private static boolean isZero(float[] vector) {
+        for (float value : vector) {
+            if (value != 0.0f) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Perform semantic search for books based on a natural language query
+     * Perform semantic search for books based on a natural language query.
+     * Only the query is embedded, and recent queries are answered from the query embedding
+     * cache; books are looked up in the approximate nearest-neighbour index, so books whose
+     * embeddings are not indexed yet are not returned.
      *
      * @param query The natural language query
      * @param limit The maximum number of results to return
      * @return A list of books ranked by semantic similarity to the query
      */
     public List<Book> semanticSearch(String query, int limit) {
-        // Generate embeddings for the query
-        float[] queryEmbedding = generateEmbeddings(query);
-
-        // Get all books
-        List<Book> allBooks = bookRepository.findAll();
+        // Generate embeddings for the query, sharing the call with identical queries
+        float[] queryEmbedding = queryEmbeddingCache.get(query, this::generateEmbeddings);
 
-        // Calculate similarity scores
-        List<Map.Entry<Book, Double>> scoredBooks = new ArrayList<>();
+        // Find the nearest book embeddings
+        return loadRanked(nearest(queryEmbedding, limit), null, limit);
+    }
 
-        for (Book book : allBooks) {
-            float[] bookEmbedding = getBookEmbedding(book);
-            double similarity = cosineSimilarity(queryEmbedding, bookEmbedding);
-            scoredBooks.add(new AbstractMap.SimpleEntry<>(book, similarity));
+    /**
+     * Rank books by semantic similarity to a query without loading them
+     *
+     * @param query The natural language query
+     * @param limit The maximum number of results to return
+     * @return The IDs of the nearest books, best first
+     * @throws IllegalArgumentException If the limit is not positive
+     * @throws IllegalStateException If the embedding service failed to embed the query
+     */
+    public List<Long> rankBooks(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive");
         }
-
-        // Sort by similarity score (descending)
-        scoredBooks.sort(Map.Entry.<Book, Double>comparingByValue().reversed());
-
-        // Return top results
-        return scoredBooks.stream()
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        float[] queryEmbedding = queryEmbeddingCache.get(query, this::generateEmbeddings);
+        if (isZero(queryEmbedding)) {
+            throw new IllegalStateException("The query could not be embedded");
+        }
+        List<HnswIndex.Neighbor> neighbors = nearest(queryEmbedding, limit);
+        List<Long> rankedIds = new ArrayList<>(neighbors.size());
+        for (HnswIndex.Neighbor neighbor : neighbors) {
+            rankedIds.add(neighbor.getId());
+        }
+        return rankedIds;
     }
 
     /**
@@ -193,54 +333,80 @@ public class SemanticSearchService {
      *
      * @param bookId The ID of the reference book
      * @param limit The maximum number of similar books to return
-     * @return A list of books similar to the reference book
+     * @return A list of books similar to the reference book, empty if the book is not indexed yet
      */
     public List<Book> findSimilarBooks(Long bookId, int limit) {
-        // Get the reference book
-        Book referenceBook = bookRepository.findById(bookId)
-                .orElseThrow(() -> new RuntimeException("Book not found"));
-
-        // Get embeddings for the reference book
-        float[] referenceEmbedding = getBookEmbedding(referenceBook);
+        // Check that the reference book exists
+        if (!bookRepository.existsById(bookId)) {
+            throw new RuntimeException("Book not found");
+        }
 
-        // Get all books except the reference book
-        List<Book> otherBooks = bookRepository.findAll().stream()
-                .filter(book -> !book.getId().equals(bookId))
-                .collect(Collectors.toList());
+        // Use the indexed embedding of the reference book
+        float[] referenceEmbedding = bookIndex.getVector(bookId);
+        if (referenceEmbedding == null) {
+            return Collections.emptyList();
+        }
 
-        // Calculate similarity scores
-        List<Map.Entry<Book, Double>> scoredBooks = new ArrayList<>();
+        // The reference book is its own nearest neighbour, so ask for one more
+        return loadRanked(nearest(referenceEmbedding, limit + 1), bookId, limit);
+    }
 
-        for (Book book : otherBooks) {
-            float[] bookEmbedding = getBookEmbedding(book);
-            double similarity = cosineSimilarity(referenceEmbedding, bookEmbedding);
-            scoredBooks.add(new AbstractMap.SimpleEntry<>(book, similarity));
+    /**
+     * Find the nearest book embeddings, scanning all of them when the catalog is small
+     */
+    private List<HnswIndex.Neighbor> nearest(float[] embedding, int limit) {
+        if (bookIndex.size() <= exactSearchThreshold) {
+            return bookIndex.exactSearch(embedding, limit, RERANK_FACTOR);
         }
+        return bookIndex.search(embedding, limit);
+    }
 
-        // Sort by similarity score (descending)
-        scoredBooks.sort(Map.Entry.<Book, Double>comparingByValue().reversed());
+    /**
+     * Load the books for ranked search results, keeping their order
+     */
+    private List<Book> loadRanked(List<HnswIndex.Neighbor> neighbors, Long excludedId, int limit) {
+        List<Long> rankedIds = new ArrayList<>(neighbors.size());
+        for (HnswIndex.Neighbor neighbor : neighbors) {
+            if (!Long.valueOf(neighbor.getId()).equals(excludedId) && rankedIds.size() < limit) {
+                rankedIds.add(neighbor.getId());
+            }
+        }
 
-        // Return top results
-        return scoredBooks.stream()
-                .limit(limit)
-                .map(Map.Entry::getKey)
+        Map<Long, Book> books = bookRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        return rankedIds.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Clear the embedding cache for a specific book
-     * (useful when a book is updated)
+     * Get the query embedding cache statistics
+     *
+     * @return Hit rate, request counters and remote call latencies
+     */
+    public Map<String, Object> getQueryCacheStats() {
+        return queryEmbeddingCache.getStats();
+    }
+
+    /**
+     * Clear the stored embedding for a specific book and drop it from the index, so it is
+     * not returned by searches until the embedding pipeline's next sweep re-embeds it.
+     * Not needed when a book is updated, since embeddings are versioned by content.
      *
-     * @param bookId The ID of the book to clear from cache
+     * @param bookId The ID of the book to clear
      */
     public void clearBookEmbeddingCache(Long bookId) {
-        bookEmbeddingCache.remove(bookId);
+        removeBook(bookId);
     }
 
     /**
-     * Clear the entire embedding cache
+     * Clear all stored book embeddings, the index built from them and the cached query
+     * embeddings; books are re-embedded by the embedding pipeline's next sweep
      */
     public void clearAllEmbeddingCache() {
-        bookEmbeddingCache.clear();
+        bookIndex.clear();
+        bookEmbeddingStore.clear();
+        queryEmbeddingCache.clear();
     }
 }
@@ -8,11 +8,13 @@ import com.library.payload.response.BookResponse;
 import com.library.payload.response.LoanResponse;
 import com.library.repository.BookRepository;
 import com.library.repository.LoanRepository;
-import com.library.service.BlockchainService;
+import com.library.service.CatalogEvent;
 import com.library.service.EmailService;
+import com.library.service.LedgerEvent;
 import com.library.service.LibrarianService;
 import com.library.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,7 +38,7 @@ public class LibrarianServiceImpl implements LibrarianService {
     private EmailService emailService;
 
     @Autowired
-    private BlockchainService blockchainService;
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -62,6 +64,7 @@ public class LibrarianServiceImpl implements LibrarianService {
         book.setCoverImageUrl(bookRequest.getCoverImageUrl());
 
         Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogEvent.added(savedBook));
 
         // Notify users who have this book in their wishlist
         notifyUsersAboutNewBook(savedBook);
@@ -112,6 +115,7 @@ public class LibrarianServiceImpl implements LibrarianService {
         book.setCoverImageUrl(bookRequest.getCoverImageUrl());
 
         Book updatedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogEvent.updated(updatedBook));
 
         // Notify users about the book update
         notifyUsersAboutNewBook(updatedBook);
@@ -131,6 +135,7 @@ public class LibrarianServiceImpl implements LibrarianService {
         }
 
         bookRepository.delete(book);
+        eventPublisher.publishEvent(CatalogEvent.deleted(book));
     }
 
     @Override
@@ -176,8 +181,8 @@ public class LibrarianServiceImpl implements LibrarianService {
         loan.setLoanDate(LocalDate.now());
         loanRepository.save(loan);
 
-        // Record the loan in the blockchain
-        blockchainService.recordLoan(loan);
+        // Record the loan in the blockchain once the transaction commits
+        eventPublisher.publishEvent(LedgerEvent.loan(loan));
 
         // Send notification to the user
         notificationService.sendUserNotification(
@@ -238,16 +243,16 @@ public class LibrarianServiceImpl implements LibrarianService {
             double fineAmount = daysOverdue * 10.0; // ₹10 per day
             loan.setFineAmount(fineAmount);
 
-            // Record fine payment in blockchain if there is a fine
+            // Record the fine in the blockchain if there is one
             if (fineAmount > 0) {
-                blockchainService.recordFinePayment(loan, fineAmount);
+                eventPublisher.publishEvent(LedgerEvent.fineAssessed(loan, fineAmount));
             }
         }
 
         loanRepository.save(loan);
 
-        // Record the return in the blockchain
-        blockchainService.recordReturn(loan);
+        // Record the return in the blockchain once the transaction commits
+        eventPublisher.publishEvent(LedgerEvent.loanReturn(loan));
 
         // Send notification to the user
         String message = "Your book return for " + loan.getBook().getTitle() + " has been processed.";
@@ -306,7 +311,7 @@ public class LibrarianServiceImpl implements LibrarianService {
         loanRepository.save(loan);
 
         // Record the change in the blockchain
-        blockchainService.recordLoanModification(loan, oldDueDate, newReturnDate);
+        eventPublisher.publishEvent(LedgerEvent.loanModification(loan, oldDueDate, newReturnDate));
 
         // Send notification to the user
         String message = "The return date for your loan of " + loan.getBook().getTitle() +
@@ -20,13 +20,14 @@ import com.library.repository.SubscriptionPlanRepository;
 import com.library.repository.SubscriptionRepository;
 import com.library.repository.UserRepository;
 import com.library.security.services.UserDetailsImpl;
-import com.library.service.BlockchainService;
 import com.library.service.EmailService;
+import com.library.service.LedgerEvent;
 import com.library.service.NotificationService;
 import com.library.service.PaymentService;
 import com.library.service.SubscriptionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -61,7 +62,7 @@ public class PaymentServiceImpl implements PaymentService {
     private EmailService emailService;
 
     @Autowired
-    private BlockchainService blockchainService;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     private PaymentMethodRepository paymentMethodRepository;
@@ -282,7 +283,7 @@ public class PaymentServiceImpl implements PaymentService {
             loanRepository.save(loan);
 
             // Record the payment in blockchain
-            blockchainService.recordFinePayment(loan, payment.getAmount());
+            eventPublisher.publishEvent(LedgerEvent.finePayment(loan, payment.getAmount()));
         }
 
         // Send notification to user
@@ -406,7 +407,7 @@ public class PaymentServiceImpl implements PaymentService {
             loanRepository.save(loan);
 
             // Record the payment in blockchain
-            blockchainService.recordFinePayment(loan, payment.getAmount());
+            eventPublisher.publishEvent(LedgerEvent.finePayment(loan, payment.getAmount()));
         }
 
         // Send notification to user
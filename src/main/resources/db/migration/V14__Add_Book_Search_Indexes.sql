@@ -0,0 +1,14 @@
+-- Index the catalog for search without leading-wildcard scans
+
+-- Publication year as a stored generated column so year ranges can use an index
+ALTER TABLE books
+ADD COLUMN publication_year SMALLINT AS (YEAR(publication_date)) STORED,
+ADD INDEX idx_books_publication_year (publication_year),
+ADD INDEX idx_books_language (language);
+
+-- InnoDB builds one FULLTEXT index per statement
+ALTER TABLE books ADD FULLTEXT INDEX ft_books_title (title);
+ALTER TABLE books ADD FULLTEXT INDEX ft_books_author (author);
+ALTER TABLE books ADD FULLTEXT INDEX ft_books_category (category);
+ALTER TABLE books ADD FULLTEXT INDEX ft_books_publisher (publisher);
+ALTER TABLE books ADD FULLTEXT INDEX ft_books_keywords (title, author, description);
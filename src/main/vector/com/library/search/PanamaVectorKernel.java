@@ -0,0 +1,52 @@
+package com.library.search;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Dot product kernel on the JDK Vector API, using the widest vectors the CPU supports.
+ * Loaded reflectively by {@link VectorMath} only when the incubator module is present.
+ */
+final class PanamaVectorKernel implements VectorMath.Kernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    // Bytes are loaded as many lanes as there are int lanes, then widened to ints
+    private static final VectorSpecies<Byte> BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        FloatVector sum = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (int bound = FLOATS.loopBound(a.length); i < bound; i += FLOATS.length()) {
+            sum = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            result += a[i] * b[i];
+        }
+        return result;
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b) {
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = BYTES.loopBound(a.length); i < bound; i += BYTES.length()) {
+            IntVector va = (IntVector) ByteVector.fromArray(BYTES, a, i).castShape(INTS, 0);
+            IntVector vb = (IntVector) ByteVector.fromArray(BYTES, b, i).castShape(INTS, 0);
+            sum = sum.add(va.mul(vb));
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            result += a[i] * b[i];
+        }
+        return result;
+    }
+}
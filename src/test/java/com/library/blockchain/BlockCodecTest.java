@@ -0,0 +1,104 @@
+package com.library.blockchain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockCodecTest {
+
+    private final LedgerKeys keys = LedgerKeys.generate();
+
+    @Test
+    void blockRoundTripsWithItsHashesAndAmounts() {
+        Block block = block();
+        Block decoded = BlockCodec.decode(BlockCodec.encode(block));
+
+        assertEquals(block.getIndex(), decoded.getIndex());
+        assertEquals(block.getTimestamp(), decoded.getTimestamp());
+        assertEquals(block.getPreviousHash(), decoded.getPreviousHash());
+        assertEquals(block.getStateRoot(), decoded.getStateRoot());
+        assertEquals(block.getHash(), decoded.getHash());
+        assertEquals(block.getNonce(), decoded.getNonce());
+        assertEquals(block.getMerkleRoot(), decoded.getMerkleRoot());
+        assertEquals(block.getMerkleRoot(), decoded.calculateMerkleRoot());
+        assertTrue(decoded.hasValidHash());
+
+        List<Transaction> transactions = decoded.getTransactions();
+        assertEquals(block.getTransactions().size(), transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction expected = block.getTransactions().get(i);
+            Transaction actual = transactions.get(i);
+            assertEquals(expected.calculateHash(), actual.calculateHash());
+            assertEquals(expected.getAmount(), actual.getAmount());
+            assertTrue(actual.verifySignature(keys.getPublicKey()));
+        }
+    }
+
+    @Test
+    void amountsKeepTheirScaleAndSign() {
+        Block decoded = BlockCodec.decode(BlockCodec.encode(block()));
+        assertNull(decoded.getTransactions().get(0).getAmount());
+        assertEquals(new BigDecimal("12.50"), decoded.getTransactions().get(1).getAmount());
+        assertEquals(new BigDecimal("-0.05"), decoded.getTransactions().get(2).getAmount());
+        assertEquals(new BigDecimal("1E+3"), decoded.getTransactions().get(3).getAmount());
+    }
+
+    @Test
+    void summaryMatchesTheHeader() {
+        Block block = block();
+        BlockSummary summary = BlockCodec.decodeSummary(ByteBuffer.wrap(BlockCodec.encode(block)));
+        assertEquals(block.getHash(), summary.getHash());
+        assertEquals(block.getStateRoot(), summary.getStateRoot());
+        assertEquals(block.getMerkleRoot(), summary.getMerkleRoot());
+        assertEquals(block.getTransactions().size(), summary.getTransactionCount());
+    }
+
+    @Test
+    void otherFormatVersionsAreRejected() {
+        byte[] data = BlockCodec.encode(block());
+        data[0] = 4;
+        assertThrows(IllegalStateException.class, () -> BlockCodec.decode(data));
+    }
+
+    @Test
+    void ledgerStateUsesTheAmountField() {
+        Block block = block();
+        Transaction scientific = new Transaction(LedgerState.FINE_ASSESSED, 1L, "user", 2L, "Book", "Fine of $1E+3");
+        block.addTransaction(scientific);
+
+        LedgerState state = new LedgerState();
+        state.apply(new Block(0, LocalDateTime.now(), "0"));
+        state.apply(block);
+        // 12.50 - 0.05 + 1000 from the amounts; the amount-less fine's details are ignored
+        assertEquals(new BigDecimal("1012.45"), state.getOutstandingFine(1L));
+    }
+
+    private Block block() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_789);
+        Block block = new Block(1, timestamp, "ab".repeat(32));
+        block.addTransaction(transaction("LOAN", null));
+        block.addTransaction(transaction(LedgerState.FINE_ASSESSED, new BigDecimal("12.50")));
+        block.addTransaction(transaction(LedgerState.FINE_ASSESSED, new BigDecimal("-0.05")));
+        block.addTransaction(transaction(LedgerState.FINE_ASSESSED, new BigDecimal("1E+3")));
+        block.setStateRoot("cd".repeat(32));
+        block.setMerkleRoot(block.calculateMerkleRoot());
+        block.setHash(block.calculateHash());
+        return block;
+    }
+
+    private Transaction transaction(String type, BigDecimal amount) {
+        Transaction transaction = new Transaction(type, 1L, "user \u00e9\ud83d\udcda", 2L, "Book", "Details");
+        transaction.setTimestamp(LocalDateTime.of(2024, 3, 1, 12, 0, 0, 987_654_321));
+        transaction.setAmount(amount);
+        keys.sign(transaction);
+        return transaction;
+    }
+}
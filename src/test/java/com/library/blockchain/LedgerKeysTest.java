@@ -0,0 +1,60 @@
+package com.library.blockchain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LedgerKeysTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void createdKeysAreLoadedBack() {
+        LedgerKeys created = LedgerKeys.loadOrCreate(directory);
+        LedgerKeys loaded = LedgerKeys.loadOrCreate(directory);
+        assertArrayEquals(created.getPublicKey().getEncoded(), loaded.getPublicKey().getEncoded());
+
+        Transaction transaction = new Transaction("LOAN", 1L, "user", 2L, "Book", "Loan");
+        loaded.sign(transaction);
+        assertTrue(transaction.verifySignature(created.getPublicKey()));
+    }
+
+    @Test
+    void privateKeyIsReadableByOwnerOnly() throws Exception {
+        LedgerKeys.loadOrCreate(directory);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------",
+                    PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.resolve("ledger-signing.key"))));
+        }
+    }
+
+    @Test
+    void missingPublicKeyFails() throws Exception {
+        LedgerKeys.loadOrCreate(directory);
+        Files.delete(directory.resolve("ledger-signing.pub"));
+
+        assertThrows(IllegalStateException.class, () -> LedgerKeys.loadOrCreate(directory));
+        assertFalse(Files.exists(directory.resolve("ledger-signing.pub")));
+    }
+
+    @Test
+    void missingPrivateKeyFailsWithoutReplacingThePublicKey() throws Exception {
+        LedgerKeys.loadOrCreate(directory);
+        byte[] publicKey = Files.readAllBytes(directory.resolve("ledger-signing.pub"));
+        Files.delete(directory.resolve("ledger-signing.key"));
+
+        assertThrows(IllegalStateException.class, () -> LedgerKeys.loadOrCreate(directory));
+        assertArrayEquals(publicKey, Files.readAllBytes(directory.resolve("ledger-signing.pub")));
+    }
+}
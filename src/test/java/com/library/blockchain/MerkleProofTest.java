@@ -0,0 +1,66 @@
+package com.library.blockchain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MerkleProofTest {
+
+    @Test
+    void everyLeafProvesAgainstTheRootForAnyLeafCount() {
+        for (int count = 1; count <= 33; count++) {
+            Block block = block(count);
+            for (Transaction transaction : block.getTransactions()) {
+                MerkleProof proof = block.getMerkleProof(transaction.getTransactionId());
+                assertTrue(proof.verify(), "leaf " + proof.getLeafIndex() + " of " + count);
+                assertEquals(block.getMerkleRoot(), proof.getMerkleRoot());
+            }
+        }
+    }
+
+    @Test
+    void duplicatingTheLastLeafChangesTheRoot() {
+        List<byte[]> leaves = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            leaves.add(HashUtils.sha256(new byte[]{(byte) i}));
+        }
+        byte[] root = new MerkleTree(leaves).getRoot();
+        leaves.add(leaves.get(2));
+        assertNotEquals(HashUtils.toHex(root), HashUtils.toHex(new MerkleTree(leaves).getRoot()));
+    }
+
+    @Test
+    void proofOfTamperedTransactionFailsAgainstTheHeaderRoot() {
+        Block block = block(5);
+        Transaction transaction = block.getTransactions().get(2);
+        transaction.setDetails("Tampered");
+
+        MerkleProof proof = block.getMerkleProof(transaction.getTransactionId());
+        assertFalse(proof.verify());
+    }
+
+    @Test
+    void proofOfUnknownTransactionIsNull() {
+        assertNull(block(3).getMerkleProof("missing"));
+    }
+
+    private static Block block(int transactions) {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+        Block block = new Block(1, timestamp, "0".repeat(64));
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = new Transaction("LOAN", (long) i, "user" + i, (long) i, "Book " + i, "Loan " + i);
+            transaction.setTimestamp(timestamp);
+            block.addTransaction(transaction);
+        }
+        block.setMerkleRoot(block.calculateMerkleRoot());
+        return block;
+    }
+}
@@ -0,0 +1,77 @@
+package com.library.blockchain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignatureVerifierTest {
+
+    private final LedgerKeys keys = LedgerKeys.generate();
+    private final SignatureVerifier verifier = new SignatureVerifier(keys.getPublicKey(), 2);
+
+    @Test
+    void signedTransactionsVerify() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            transactions.add(signed(i));
+        }
+        assertTrue(verifier.verifyAll(transactions));
+    }
+
+    @Test
+    void tamperedFieldFailsVerification() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            transactions.add(signed(i));
+        }
+        transactions.get(3).setUserId(99L);
+        transactions.get(11).setAmount(new BigDecimal("0.01"));
+
+        boolean[] valid = verifier.verify(transactions);
+        for (int i = 0; i < valid.length; i++) {
+            assertEquals(i != 3 && i != 11, valid[i]);
+        }
+    }
+
+    @Test
+    void signatureFromAnotherKeyFailsVerification() {
+        Transaction transaction = signed(1);
+        LedgerKeys.generate().sign(transaction);
+        assertFalse(verifier.verifyAll(List.of(transaction)));
+    }
+
+    @Test
+    void unsignedMiningRewardFailsVerification() {
+        Transaction forged = new Transaction("MINING_REWARD", 7L, "mallory", 3L, "Book", "Fine paid $5");
+        assertFalse(verifier.verifyAll(List.of(forged)));
+    }
+
+    @Test
+    void chainSignsItsRewardsAndRejectsUnsignedTransactions() {
+        Blockchain blockchain = new Blockchain(1, "TOKEN");
+        blockchain.setSignatureVerifier(verifier);
+        blockchain.setLedgerKeys(keys);
+
+        blockchain.addTransaction(signed(1));
+        blockchain.addTransaction(new Transaction("MINING_REWARD", 7L, "mallory", 3L, "Book", "Forged"));
+        assertTrue(blockchain.minePendingTransactions("SYSTEM"));
+
+        List<Transaction> sealed = blockchain.getLatestBlock().getTransactions();
+        assertEquals(2, sealed.size());
+        assertEquals("LOAN", sealed.get(0).getType());
+        assertEquals("MINING_REWARD", sealed.get(1).getType());
+        assertTrue(blockchain.isChainValid());
+    }
+
+    private Transaction signed(int i) {
+        Transaction transaction = new Transaction("LOAN", (long) i, "user" + i, (long) i, "Book " + i, "Loan " + i);
+        keys.sign(transaction);
+        return transaction;
+    }
+}